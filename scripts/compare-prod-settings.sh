@@ -0,0 +1,30 @@
+#!/usr/bin/env bash
+# Before/after comparison of the prod profile's driver, pool and Hibernate settings on a real
+# MySQL: the load-test workload runs once with the default settings and once with the prod
+# profile, against the same database, one after the other. Record both reports next to any
+# claim about the prod settings.
+#
+# Usage: scripts/compare-prod-settings.sh [users] [duration-seconds]
+# DB_HOST, DB_PORT, DB_NAME, DB_USERNAME, DB_PASSWORD and NOTES_MASTER_KEY come from the environment.
+# Use a disposable database: each run signs up its own users and leaves them behind.
+set -euo pipefail
+
+USERS=${1:-50}
+DURATION=${2:-60}
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RUN_ID=$(date +%s | tail -c 6)
+
+run() {
+    local name=$1
+    local profiles=$2
+    echo "== $name =="
+    "$ROOT/mvnw" -q -f "$ROOT/pom.xml" -Ploadtest -DskipTests test-compile exec:exec \
+        -Dloadtest.users="$USERS" -Dloadtest.duration="$DURATION" \
+        -Dloadtest.profiles="$profiles" -Dloadtest.userPrefix="${name:0:1}${RUN_ID}u"
+}
+
+# The default profile has the URL and user hard-coded, point it at the same database as prod
+SPRING_DATASOURCE_URL="jdbc:mysql://${DB_HOST}:${DB_PORT:-3306}/${DB_NAME}" \
+SPRING_DATASOURCE_USERNAME="${DB_USERNAME}" \
+    run baseline ""
+run prod prod
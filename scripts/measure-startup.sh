@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# Time from process launch to the first successful HTTP response, for each startup variant.
+#
+#   ./mvnw -DskipTests package                       -> plain jar
+#   ./mvnw -Pfast-startup -DskipTests package        -> AOT + CDS (target/application)
+#   ./mvnw -Pnative -DskipTests native:compile       -> native executable (target/notes)
+#
+# Usage: scripts/measure-startup.sh [runs] ; database and NOTES_MASTER_KEY come from the environment.
+# All variants run with SPRING_PROFILES_ACTIVE (prod by default), which must match -Daot.profiles of
+# the fast-startup build. Besides the time, the resident memory after the first request is reported.
+#
+# Neither startup time nor memory has been measured for these builds yet; run this on the target
+# JDK 23 / GraalVM with its database before relying on any of them.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-8080}
+export SPRING_PROFILES_ACTIVE=${SPRING_PROFILES_ACTIVE:-prod}
+URL="http://localhost:${PORT}/api/csrf-token"
+TARGET="$(cd "$(dirname "$0")/.." && pwd)/target"
+JAR=$(ls "$TARGET"/notes-*.jar 2>/dev/null | grep -v original | head -n 1 || true)
+
+now_ms() {
+    date +%s%3N
+}
+
+measure() {
+    local name=$1
+    shift
+    local total=0
+    local total_rss=0
+    for run in $(seq 1 "$RUNS"); do
+        local start
+        start=$(now_ms)
+        "$@" --server.port="$PORT" > /dev/null 2>&1 &
+        local pid=$!
+        until curl -fs -o /dev/null "$URL"; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "$name: process exited before serving a request" >&2
+                return 1
+            fi
+            sleep 0.02
+        done
+        local elapsed=$(( $(now_ms) - start ))
+        local rss_kb
+        rss_kb=$(ps -o rss= -p "$pid" | tr -d ' ')
+        total=$(( total + elapsed ))
+        total_rss=$(( total_rss + rss_kb ))
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        echo "$name run $run: ${elapsed} ms, $(( rss_kb / 1024 )) MB RSS"
+    done
+    echo "$name average: $(( total / RUNS )) ms, $(( total_rss / RUNS / 1024 )) MB RSS"
+}
+
+if [[ -n "$JAR" ]]; then
+    measure "jar" java -jar "$JAR"
+fi
+if [[ -f "$TARGET/application/application.jsa" ]]; then
+    (cd "$TARGET/application" && measure "aot+cds" java -XX:SharedArchiveFile=application.jsa \
+        -Dspring.aot.enabled=true -jar "$(basename "$JAR")")
+fi
+if [[ -x "$TARGET/notes" ]]; then
+    measure "native" "$TARGET/notes"
+fi
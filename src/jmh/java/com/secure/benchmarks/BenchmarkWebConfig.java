@@ -0,0 +1,13 @@
+package com.secure.benchmarks;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+/**
+ * Minimal MVC setup for the filter chain benchmark's hand-built context. Registered explicitly
+ * and kept outside com.secure.notes, where the application's component scan would find it.
+ */
+@Configuration
+@EnableWebMvc
+public class BenchmarkWebConfig {
+}
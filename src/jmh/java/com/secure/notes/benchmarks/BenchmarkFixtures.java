@@ -0,0 +1,99 @@
+package com.secure.notes.benchmarks;
+
+import com.secure.notes.cache.TieredCache;
+import com.secure.notes.models.AppRole;
+import com.secure.notes.models.Note;
+import com.secure.notes.models.Role;
+import com.secure.notes.models.User;
+import com.secure.notes.repositories.RevokedTokenRepository;
+import com.secure.notes.security.jwt.AuthTokenFilter;
+import com.secure.notes.security.jwt.JwtKeyProperties;
+import com.secure.notes.security.jwt.JwtKeyRing;
+import com.secure.notes.security.jwt.JwtUtils;
+import com.secure.notes.security.jwt.VerifiedToken;
+import com.secure.notes.security.revocation.TokenRevocationService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Wires the security components by hand so each benchmark measures the component and not
+ * Spring context startup. Shared stores are left out: the near cache is what serves hot paths.
+ */
+final class BenchmarkFixtures {
+
+    static final String LEGACY_SECRET = "bXlzZWNyZXRrZXlteXNlY3JldGtleW15c2VjcmV0a2V5bXlzZWNyZXRrZXk=";
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtKeyRing keyRing() {
+        return new JwtKeyRing(new JwtKeyProperties(), LEGACY_SECRET);
+    }
+
+    static JwtUtils jwtUtils(JwtKeyRing keyRing) {
+        return jwtUtils(keyRing, Duration.ofMinutes(5));
+    }
+
+    // A zero TTL gives a token cache that never hits, i.e. every token is seen for the first time
+    static JwtUtils jwtUtils(JwtKeyRing keyRing, Duration tokenCacheTtl) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 900_000);
+        ReflectionTestUtils.setField(jwtUtils, "keyRing", keyRing);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedTokenCache",
+                new TieredCache<>("tokens", VerifiedToken.class, 10_000, tokenCacheTtl, null));
+        ReflectionTestUtils.invokeMethod(jwtUtils, "initParser");
+        return jwtUtils;
+    }
+
+    @SuppressWarnings("unchecked")
+    static TokenRevocationService revocationService() {
+        RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of());
+        TokenRevocationService service = new TokenRevocationService();
+        ReflectionTestUtils.setField(service, "revokedTokenRepository", repository);
+        ReflectionTestUtils.setField(service, "sharedStore", mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(service, "expectedRevocations", 100_000);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    static AuthTokenFilter authTokenFilter(JwtUtils jwtUtils, TokenRevocationService revocationService) {
+        AuthTokenFilter filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", revocationService);
+        return filter;
+    }
+
+    static User user() {
+        User user = new User("user1", "user1@example.com", "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3ZBOI0kXHP1J7fA3Lq0cK2W");
+        user.setUserId(1L);
+        user.setRole(new Role(AppRole.ROLE_USER));
+        user.setCredentialsExpiryDate(LocalDate.now().plusYears(1));
+        user.setAccountExpiryDate(LocalDate.now().plusYears(1));
+        user.setSignUpMethod("email");
+        return user;
+    }
+
+    static List<Note> notes(int count, int contentLength) {
+        String content = "x".repeat(contentLength);
+        List<Note> notes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Note note = new Note();
+            note.setId((long) i);
+            note.setContent(content);
+            note.setOwnerUsername("user1");
+            notes.add(note);
+        }
+        return notes;
+    }
+}
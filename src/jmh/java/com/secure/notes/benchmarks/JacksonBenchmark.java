@@ -0,0 +1,88 @@
+package com.secure.notes.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.secure.notes.dtos.NoteResponse;
+import com.secure.notes.dtos.UserDTO;
+import com.secure.notes.dtos.UserSummaryResponse;
+import com.secure.notes.models.Note;
+import com.secure.notes.models.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entities as the controllers used to return them against the response records, with the
+ * default mapper and with the tuned one from JacksonConfig.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+
+    @Param({"10", "1000"})
+    public int noteCount;
+
+    @Param({"default", "tuned"})
+    public String mapper;
+
+    private ObjectMapper objectMapper;
+    private List<Note> notes;
+    private List<NoteResponse> noteResponses;
+    private List<User> users;
+    private List<UserSummaryResponse> userSummaries;
+    private UserDTO userDTO;
+
+    @Setup
+    public void setUp() {
+        // Matches what Spring Boot's Jackson auto-configuration builds
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if ("tuned".equals(mapper)) {
+            objectMapper.registerModule(new BlackbirdModule());
+        }
+        notes = BenchmarkFixtures.notes(noteCount, 512);
+        noteResponses = notes.stream().map(NoteResponse::from).toList();
+        users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(BenchmarkFixtures.user());
+        }
+        userSummaries = users.stream().map(UserSummaryResponse::from).toList();
+        User user = BenchmarkFixtures.user();
+        userDTO = new UserDTO(user.getUserId(), user.getUserName(), user.getEmail(), true, true, true, true,
+                user.getCredentialsExpiryDate(), user.getAccountExpiryDate(), null, false, user.getSignUpMethod(),
+                user.getRole(), user.getCreatedDate(), user.getUpdatedDate());
+    }
+
+    @Benchmark
+    public byte[] noteEntityList() throws Exception {
+        return objectMapper.writeValueAsBytes(notes);
+    }
+
+    @Benchmark
+    public byte[] noteResponseList() throws Exception {
+        return objectMapper.writeValueAsBytes(noteResponses);
+    }
+
+    @Benchmark
+    public byte[] userEntityList() throws Exception {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] userSummaryList() throws Exception {
+        return objectMapper.writeValueAsBytes(userSummaries);
+    }
+
+    @Benchmark
+    public byte[] userDto() throws Exception {
+        return objectMapper.writeValueAsBytes(userDTO);
+    }
+}
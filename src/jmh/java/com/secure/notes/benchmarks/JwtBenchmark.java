@@ -0,0 +1,112 @@
+package com.secure.notes.benchmarks;
+
+import com.secure.notes.security.jwt.JwtKeyRing;
+import com.secure.notes.security.jwt.JwtUtils;
+import com.secure.notes.security.jwt.VerifiedToken;
+import com.secure.notes.security.services.UserDetailsImpl;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification cost. The raw benchmarks compare the previous HS256 scheme
+ * with ES256 without any caching; the {@code jwtUtils*} ones measure the request path as shipped,
+ * with a warm token cache ({@code *Cached}) and with one that never hits ({@code *Cold}), which is
+ * what the first request with a new token pays on every node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtils jwtUtils;
+    private JwtUtils coldJwtUtils;
+    private UserDetailsImpl userDetails;
+    private String token;
+
+    private JwtKeyRing keyRing;
+    private SecretKey hmacKey;
+    private JwtParser es256Parser;
+    private JwtParser hs256Parser;
+    private String es256Token;
+    private String hs256Token;
+
+    @Setup
+    public void setUp() {
+        keyRing = BenchmarkFixtures.keyRing();
+        jwtUtils = BenchmarkFixtures.jwtUtils(keyRing);
+        coldJwtUtils = BenchmarkFixtures.jwtUtils(keyRing, Duration.ZERO);
+        userDetails = UserDetailsImpl.build(BenchmarkFixtures.user());
+        token = jwtUtils.generateTokenFromUsername(userDetails);
+
+        hmacKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(BenchmarkFixtures.LEGACY_SECRET));
+        es256Parser = Jwts.parser().keyLocator(keyRing).build();
+        hs256Parser = Jwts.parser().verifyWith(hmacKey).build();
+        es256Token = signEs256();
+        hs256Token = signHs256();
+    }
+
+    @Benchmark
+    public String signHs256() {
+        return Jwts.builder()
+                .subject("user1")
+                .expiration(new Date(System.currentTimeMillis() + 900_000))
+                .signWith(hmacKey)
+                .compact();
+    }
+
+    @Benchmark
+    public String signEs256() {
+        return Jwts.builder()
+                .header().keyId(keyRing.getActiveKid()).and()
+                .subject("user1")
+                .expiration(new Date(System.currentTimeMillis() + 900_000))
+                .signWith(keyRing.getSigningKey(), Jwts.SIG.ES256)
+                .compact();
+    }
+
+    @Benchmark
+    public Object verifyHs256() {
+        return hs256Parser.parseSignedClaims(hs256Token).getPayload();
+    }
+
+    @Benchmark
+    public Object verifyEs256() {
+        return es256Parser.parseSignedClaims(es256Token).getPayload();
+    }
+
+    @Benchmark
+    public String jwtUtilsGenerate() {
+        return jwtUtils.generateTokenFromUsername(userDetails);
+    }
+
+    @Benchmark
+    public VerifiedToken jwtUtilsValidateCached() {
+        return jwtUtils.verifyJwtToken(token);
+    }
+
+    @Benchmark
+    public String jwtUtilsParseUsernameCached() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+
+    @Benchmark
+    public VerifiedToken jwtUtilsValidateCold() {
+        return coldJwtUtils.verifyJwtToken(token);
+    }
+
+    @Benchmark
+    public String jwtUtilsParseUsernameCold() {
+        return coldJwtUtils.getUserNameFromJwtToken(token);
+    }
+}
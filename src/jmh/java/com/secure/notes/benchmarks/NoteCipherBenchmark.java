@@ -0,0 +1,62 @@
+package com.secure.notes.benchmarks;
+
+import com.secure.notes.models.Note;
+import com.secure.notes.security.crypto.DataKey;
+import com.secure.notes.security.crypto.NoteCipher;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost encryption adds to listing notes once the user's data key is cached: budget is a few
+ * milliseconds for 1,000 notes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteCipherBenchmark {
+
+    @Param({"10", "1000"})
+    public int noteCount;
+
+    @Param({"512", "4096"})
+    public int contentLength;
+
+    private DataKey key;
+    private String[] sealed;
+    private String plaintext;
+
+    @Setup
+    public void setUp() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        key = NoteCipher.deriveKey(1L, "user1", secret);
+        List<Note> notes = BenchmarkFixtures.notes(noteCount, contentLength);
+        sealed = notes.stream().map(note -> NoteCipher.seal(key, note.getContent())).toArray(String[]::new);
+        plaintext = notes.get(0).getContent();
+    }
+
+    @Benchmark
+    public int openNoteList() {
+        int length = 0;
+        for (String content : sealed) {
+            length += NoteCipher.open(key, content).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public String sealNote() {
+        return NoteCipher.seal(key, plaintext);
+    }
+
+    @Benchmark
+    public String dedupHash() {
+        return NoteCipher.dedupHash(key, plaintext);
+    }
+}
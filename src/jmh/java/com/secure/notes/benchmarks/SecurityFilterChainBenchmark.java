@@ -0,0 +1,102 @@
+package com.secure.notes.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secure.benchmarks.BenchmarkWebConfig;
+import com.secure.benchmarks.LegacySecurityConfig;
+import com.secure.notes.models.User;
+import com.secure.notes.repositories.RoleRepository;
+import com.secure.notes.repositories.UserRepository;
+import com.secure.notes.security.SecurityConfig;
+import com.secure.notes.security.jwt.AuthEntryPointJwt;
+import com.secure.notes.security.jwt.JwtUtils;
+import com.secure.notes.security.services.UserDetailsImpl;
+import jakarta.servlet.Filter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * The whole Spring Security filter chain per API request, comparing the old single chain
+ * ({@code legacy}) with the stateless API chain. A Basic header costs a BCrypt check on the
+ * legacy chain and is rejected up front by the API chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityFilterChainBenchmark {
+
+    @Param({"legacy", "stateless"})
+    public String chain;
+
+    private AnnotationConfigWebApplicationContext context;
+    private Filter filterChainProxy;
+    private String bearer;
+    private String basic;
+
+    @Setup
+    public void setUp() throws Exception {
+        JwtUtils jwtUtils = BenchmarkFixtures.jwtUtils(BenchmarkFixtures.keyRing());
+        User user = BenchmarkFixtures.user();
+        user.setPassword(new BCryptPasswordEncoder().encode("password1"));
+        UserDetailsService userDetailsService = username -> UserDetailsImpl.build(user);
+        AuthEntryPointJwt entryPoint = new AuthEntryPointJwt();
+        ReflectionTestUtils.setField(entryPoint, "objectMapper", new ObjectMapper());
+
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.register(BenchmarkWebConfig.class, "legacy".equals(chain) ? LegacySecurityConfig.class : SecurityConfig.class);
+        // Registered as finished singletons so the context does not try to wire them again
+        context.addBeanFactoryPostProcessor(beanFactory -> {
+            beanFactory.registerSingleton("authTokenFilter",
+                    BenchmarkFixtures.authTokenFilter(jwtUtils, BenchmarkFixtures.revocationService()));
+            beanFactory.registerSingleton("authEntryPointJwt", entryPoint);
+            beanFactory.registerSingleton("userDetailsService", userDetailsService);
+            beanFactory.registerSingleton("roleRepository", mock(RoleRepository.class));
+            beanFactory.registerSingleton("userRepository", mock(UserRepository.class));
+        });
+        context.refresh();
+        filterChainProxy = context.getBean("springSecurityFilterChain", Filter.class);
+
+        bearer = "Bearer " + jwtUtils.generateTokenFromUsername(UserDetailsImpl.build(user));
+        basic = "Basic " + Base64.getEncoder().encodeToString("user1:password1".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int jwtRequest() throws Exception {
+        return request(bearer);
+    }
+
+    @Benchmark
+    public int basicRequest() throws Exception {
+        return request(basic);
+    }
+
+    private int request(String authorization) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes");
+        request.setServletPath("/api/notes");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filterChainProxy.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
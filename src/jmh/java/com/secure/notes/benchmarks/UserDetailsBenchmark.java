@@ -0,0 +1,28 @@
+package com.secure.notes.benchmarks;
+
+import com.secure.notes.models.User;
+import com.secure.notes.security.services.UserDetailsImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDetailsBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkFixtures.user();
+    }
+
+    @Benchmark
+    public UserDetailsImpl build() {
+        return UserDetailsImpl.build(user);
+    }
+}
@@ -0,0 +1,198 @@
+package com.secure.notes.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secure.notes.NotesApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots the application against H2 (profile {@code loadtest}), seeds users through the signup
+ * endpoint and notes through the notes API, then drives a mixed workload with one virtual
+ * thread per user and prints throughput, latency percentiles and allocation rate.
+ *
+ * <p>Settings: {@code -Dloadtest.users}, {@code -Dloadtest.notesPerUser}, {@code -Dloadtest.duration} (seconds),
+ * {@code -Dloadtest.profiles} (comma-separated, blank for none; anything but {@code loadtest} uses the real
+ * database of those profiles) and {@code -Dloadtest.userPrefix}, which must differ between runs on one database.
+ */
+public final class LoadTestRunner {
+
+    enum Operation {
+        SIGNIN(5), LIST(50), CREATE(15), UPDATE(25), DELETE(5);
+
+        final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        static Operation pick(int roll) {
+            for (Operation operation : values()) {
+                roll -= operation.weight;
+                if (roll < 0) {
+                    return operation;
+                }
+            }
+            return LIST;
+        }
+    }
+
+    private static final String PASSWORD = "loadtest-password";
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+    private final String content;
+
+    private LoadTestRunner(String baseUrl, int contentLength) {
+        this.baseUrl = baseUrl;
+        this.content = "n".repeat(contentLength);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("loadtest.users", 50);
+        int notesPerUser = Integer.getInteger("loadtest.notesPerUser", 20);
+        int durationSeconds = Integer.getInteger("loadtest.duration", 30);
+        String[] profiles = Arrays.stream(System.getProperty("loadtest.profiles", "loadtest").split(","))
+                .map(String::strip)
+                .filter(profile -> !profile.isEmpty())
+                .toArray(String[]::new);
+        String userPrefix = System.getProperty("loadtest.userPrefix", "load");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(NotesApplication.class)
+                .profiles(profiles)
+                .run("--server.port=0");
+        int exitCode = 0;
+        try {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            LoadTestRunner runner = new LoadTestRunner("http://localhost:" + port, 512);
+
+            long seedStart = System.nanoTime();
+            System.out.printf("Profiles: %s%n", profiles.length > 0 ? String.join(",", profiles) : "default");
+            List<VirtualUser> seeded = runner.seed(userPrefix, users, notesPerUser);
+            System.out.printf("Seeded %d users with %d notes each in %.1fs%n",
+                    users, notesPerUser, (System.nanoTime() - seedStart) / 1e9);
+
+            runner.run(seeded, durationSeconds);
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    private record VirtualUser(String username, NotesClient client, List<Long> noteIds) {
+    }
+
+    private List<VirtualUser> seed(String userPrefix, int users, int notesPerUser) throws Exception {
+        List<Callable<VirtualUser>> tasks = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            String username = userPrefix + i;
+            tasks.add(() -> {
+                NotesClient client = new NotesClient(baseUrl, mapper);
+                client.signup(username, PASSWORD);
+                client.signin(username, PASSWORD);
+                List<Long> noteIds = new ArrayList<>();
+                for (int n = 0; n < notesPerUser; n++) {
+                    noteIds.add(client.createNote(content));
+                }
+                return new VirtualUser(username, client, noteIds);
+            });
+        }
+        List<VirtualUser> seeded = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var future : executor.invokeAll(tasks)) {
+                seeded.add(future.get());
+            }
+        }
+        return seeded;
+    }
+
+    private void run(List<VirtualUser> users, int durationSeconds) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getTotalThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long deadline = start + durationSeconds * 1_000_000_000L;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (VirtualUser user : users) {
+                executor.submit(() -> drive(user, deadline));
+            }
+        }
+
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        long allocated = threads.getTotalThreadAllocatedBytes() - allocatedBefore;
+        report(elapsedSeconds, allocated);
+    }
+
+    private void drive(VirtualUser user, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            Operation operation = Operation.pick(random.nextInt(100));
+            if ((operation == Operation.UPDATE || operation == Operation.DELETE) && user.noteIds().isEmpty()) {
+                operation = Operation.CREATE;
+            }
+            long begin = System.nanoTime();
+            try {
+                switch (operation) {
+                    case SIGNIN -> user.client().signin(user.username(), PASSWORD);
+                    case LIST -> user.client().listNotes();
+                    case CREATE -> user.noteIds().add(user.client().createNote(content));
+                    case UPDATE -> user.client().updateNote(
+                            user.noteIds().get(random.nextInt(user.noteIds().size())), content + begin);
+                    case DELETE -> user.client().deleteNote(
+                            user.noteIds().remove(random.nextInt(user.noteIds().size())));
+                }
+                latencies.get(operation).recordValue(System.nanoTime() - begin);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                errors.get(operation).incrementAndGet();
+            }
+        }
+    }
+
+    private void report(double elapsedSeconds, long allocatedBytes) {
+        System.out.printf("%n%-8s %10s %10s %10s %10s %10s %8s%n",
+                "op", "count", "ops/s", "p50 ms", "p99 ms", "p999 ms", "errors");
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            long count = histogram.getTotalCount();
+            total += count;
+            System.out.printf("%-8s %10d %10.1f %10.2f %10.2f %10.2f %8d%n",
+                    operation, count, count / elapsedSeconds,
+                    histogram.getValueAtPercentile(50) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getValueAtPercentile(99.9) / 1e6,
+                    errors.get(operation).get());
+        }
+        System.out.printf("%nTotal: %d requests in %.1fs, %.1f req/s%n", total, elapsedSeconds, total / elapsedSeconds);
+        // Server and load generator share the JVM, so this is an upper bound for the server alone
+        System.out.printf("Allocation rate: %.1f MB/s (%.1f KB/request, includes the load generator)%n",
+                allocatedBytes / elapsedSeconds / (1024 * 1024),
+                total > 0 ? allocatedBytes / 1024.0 / total : 0);
+    }
+}
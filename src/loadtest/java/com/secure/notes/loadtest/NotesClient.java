@@ -0,0 +1,104 @@
+package com.secure.notes.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+/**
+ * One simulated device: its own cookie jar (for the CSRF cookie), access token and CSRF token.
+ */
+final class NotesClient {
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final ObjectMapper mapper;
+
+    private String accessToken;
+    private String csrfHeaderName;
+    private String csrfToken;
+
+    NotesClient(String baseUrl, ObjectMapper mapper) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .cookieHandler(new CookieManager())
+                .build();
+        this.baseUrl = baseUrl;
+        this.mapper = mapper;
+    }
+
+    void signup(String username, String password) throws IOException, InterruptedException {
+        send(json("/api/auth/public/signup").POST(body(Map.of(
+                "username", username,
+                "email", username + "@loadtest.local",
+                "password", password))).build());
+    }
+
+    void signin(String username, String password) throws IOException, InterruptedException {
+        JsonNode response = mapper.readTree(send(json("/api/auth/public/signin")
+                .POST(body(Map.of("username", username, "password", password))).build()));
+        accessToken = response.get("jwtToken").asText();
+        if (csrfToken == null) {
+            JsonNode csrf = mapper.readTree(send(authorized("/api/csrf-token").GET().build()));
+            csrfHeaderName = csrf.get("headerName").asText();
+            csrfToken = csrf.get("token").asText();
+        }
+    }
+
+    long createNote(String content) throws IOException, InterruptedException {
+        JsonNode note = mapper.readTree(send(text("/api/notes")
+                .POST(HttpRequest.BodyPublishers.ofString(content)).build()));
+        return note.get("id").asLong();
+    }
+
+    int listNotes() throws IOException, InterruptedException {
+        return mapper.readTree(send(authorized("/api/notes").GET().build())).size();
+    }
+
+    void updateNote(long noteId, String content) throws IOException, InterruptedException {
+        send(text("/api/notes/" + noteId).PUT(HttpRequest.BodyPublishers.ofString(content)).build());
+    }
+
+    void deleteNote(long noteId) throws IOException, InterruptedException {
+        send(withCsrf(authorized("/api/notes/" + noteId)).DELETE().build());
+    }
+
+    private HttpRequest.Builder json(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.Builder text(String path) {
+        return withCsrf(authorized(path)).header("Content-Type", "text/plain");
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        if (accessToken != null) {
+            builder.header("Authorization", "Bearer " + accessToken);
+        }
+        return builder;
+    }
+
+    private HttpRequest.Builder withCsrf(HttpRequest.Builder builder) {
+        return builder.header(csrfHeaderName, csrfToken);
+    }
+
+    private HttpRequest.BodyPublisher body(Object value) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(value));
+    }
+
+    private byte[] send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(request.method() + " " + request.uri().getPath() + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -2,8 +2,12 @@ package com.secure.notes;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(NotesRuntimeHints.class)
 public class NotesApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,60 @@
+package com.secure.notes;
+
+import com.secure.notes.cache.NoteFacets;
+import com.secure.notes.cache.NoteGrants;
+import com.secure.notes.cache.NoteList;
+import com.secure.notes.models.Note;
+import com.secure.notes.models.NotePermission;
+import com.secure.notes.security.crypto.SealedTextConverter;
+import com.secure.notes.security.jwt.VerifiedToken;
+import com.secure.notes.security.services.UserDetailsImpl;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+
+/**
+ * What AOT processing cannot infer for a native image. Entities, controllers and request/response
+ * bodies are covered by Spring's own processors, and Lombok only generates plain methods at
+ * compile time, so this is limited to reflection done outside Spring.
+ */
+public class NotesRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // TieredCache copies values to the shared store with Java serialization
+        for (Class<?> type : new Class<?>[]{UserDetailsImpl.class, VerifiedToken.class, NoteList.class, Note.class,
+                NoteGrants.class, NoteGrants.Grant.class, NotePermission.class, NoteFacets.class,
+                SimpleGrantedAuthority.class, ArrayList.class}) {
+            hints.serialization().registerType(type);
+        }
+        hints.serialization().registerType(TypeReference.of("java.util.ImmutableCollections$ListN"));
+        hints.serialization().registerType(TypeReference.of("java.util.ImmutableCollections$List12"));
+        hints.serialization().registerType(TypeReference.of("java.util.ImmutableCollections$MapN"));
+        hints.serialization().registerType(TypeReference.of("java.util.ImmutableCollections$Map1"));
+        hints.serialization().registerType(TypeReference.of("java.util.CollSer"));
+
+        // Created by Hibernate through Spring's bean container
+        hints.reflection().registerType(SealedTextConverter.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.DECLARED_FIELDS);
+
+        // jjwt looks its implementation classes up by name
+        for (String type : new String[]{
+                "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardKeyOperations",
+                "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+                "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+                "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+                "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                "io.jsonwebtoken.jackson.io.JacksonDeserializer"}) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.secure.notes.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secure.notes.repositories.AuditEntryRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfig {
+
+    @Bean
+    public AuditLog auditLog(AuditProperties properties,
+                             AuditEntryRepository auditEntryRepository,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper) throws IOException {
+        List<AuditSink> sinks = new ArrayList<>();
+        if (properties.getTable().isEnabled()) {
+            sinks.add(new AuditTableSink(auditEntryRepository, new TransactionTemplate(transactionManager)));
+        }
+        if (properties.getFile().isEnabled()) {
+            sinks.add(new AuditFileSink(Path.of(properties.getFile().getPath()), objectMapper,
+                    properties.getFile().isSync()));
+        }
+        return new AuditLog(properties, sinks);
+    }
+}
@@ -0,0 +1,13 @@
+package com.secure.notes.audit;
+
+public enum AuditEventType {
+    SIGNIN_SUCCESS,
+    SIGNIN_FAILURE,
+    SIGNUP,
+    ROLE_CHANGE,
+    NOTE_DELETE,
+    NOTE_SHARE,
+    NOTE_UNSHARE,
+    ACCOUNT_EXPIRED,
+    CREDENTIALS_EXPIRED
+}
@@ -0,0 +1,52 @@
+package com.secure.notes.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Append-only JSON lines, one write per batch
+class AuditFileSink implements AuditSink {
+
+    private final FileChannel channel;
+    private final ObjectMapper objectMapper;
+    private final boolean sync;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    AuditFileSink(Path path, ObjectMapper objectMapper, boolean sync) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.objectMapper = objectMapper;
+        this.sync = sync;
+    }
+
+    @Override
+    public void write(List<AuditRecord> batch) throws IOException {
+        buffer.reset();
+        for (AuditRecord record : batch) {
+            objectMapper.writeValue(buffer, record);
+            buffer.write('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,113 @@
+package com.secure.notes.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Security audit trail kept off the request path: {@link #record} only copies the event into
+ * a pre-allocated ring buffer, and a single writer thread drains it in batches to the
+ * configured sinks. When the buffer is full the overflow policy decides whether the event is
+ * dropped (counted and logged) or the producer waits for a free slot.
+ */
+public class AuditLog implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AuditRingBuffer ring;
+    private final List<AuditSink> sinks;
+    private final AuditProperties properties;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    AuditLog(AuditProperties properties, List<AuditSink> sinks) {
+        this.properties = properties;
+        this.ring = new AuditRingBuffer(properties.getCapacity());
+        this.sinks = List.copyOf(sinks);
+        this.writer = Thread.ofPlatform().name("audit-writer").daemon().unstarted(this::drainLoop);
+        this.writer.start();
+    }
+
+    public void record(AuditEventType type, String actor, String target, String detail) {
+        long now = System.currentTimeMillis();
+        if (ring.offer(now, type, actor, target, detail)) {
+            return;
+        }
+        if (properties.getOverflowPolicy() == AuditProperties.OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + properties.getBlockTimeout().toNanos();
+            while (running && System.nanoTime() < deadline) {
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (ring.offer(now, type, actor, target, detail)) {
+                    return;
+                }
+            }
+        }
+        long total = dropped.incrementAndGet();
+        // Power-of-two counts only, a sustained overload must not flood the log as well
+        if (Long.bitCount(total) == 1) {
+            logger.warn("Audit buffer full, {} events dropped so far (latest {} by {})", total, type, actor);
+        }
+    }
+
+    // Username of the authenticated caller, for events raised deep in the service layer
+    public static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drainLoop() {
+        List<AuditRecord> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            if (ring.drainTo(batch, properties.getBatchSize()) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<AuditRecord> batch) {
+        for (AuditSink sink : sinks) {
+            try {
+                sink.write(batch);
+            } catch (Exception e) {
+                // One failing sink must not stop the others or the writer thread
+                logger.error("Audit sink {} failed to write {} events", sink.getClass().getSimpleName(),
+                        batch.size(), e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        // Events recorded during shutdown are still written, on the closing thread
+        List<AuditRecord> batch = new ArrayList<>(properties.getBatchSize());
+        while (ring.drainTo(batch, properties.getBatchSize()) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        for (AuditSink sink : sinks) {
+            sink.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.secure.notes.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "spring.app.audit")
+public class AuditProperties {
+
+    // Ring buffer slots, a power of two
+    private int capacity = 8192;
+
+    private int batchSize = 256;
+
+    // What a producer does when the buffer is full
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    // Longest a producer waits under BLOCK before the event is dropped after all
+    private Duration blockTimeout = Duration.ofSeconds(1);
+
+    private Table table = new Table();
+
+    private File file = new File();
+
+    public enum OverflowPolicy {
+        // Bounded loss: never slows the request down, counts and logs dropped events
+        DROP,
+        // Waits for the writer to free a slot, up to block-timeout
+        BLOCK
+    }
+
+    @Data
+    public static class Table {
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class File {
+        private boolean enabled = false;
+        private String path = "data/audit/audit.log";
+        // fsync after every batch instead of leaving it to the OS
+        private boolean sync = false;
+    }
+}
@@ -0,0 +1,7 @@
+package com.secure.notes.audit;
+
+import java.time.Instant;
+
+// Immutable copy of a ring buffer slot handed to the sinks
+public record AuditRecord(Instant timestamp, AuditEventType type, String actor, String target, String detail) {
+}
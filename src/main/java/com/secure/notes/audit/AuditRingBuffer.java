@@ -0,0 +1,90 @@
+package com.secure.notes.audit;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Multi-producer, single-consumer ring of pre-allocated slots. A producer claims a sequence
+ * with a CAS, fills the slot and publishes it by storing the sequence in {@code published};
+ * the consumer reads slots in sequence order up to the first unpublished one and frees them
+ * by advancing {@code consumed}. No locks, and no allocation on the producer side.
+ */
+final class AuditRingBuffer {
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLongArray published;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+
+    AuditRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            published.set(i, -1);
+        }
+    }
+
+    // Returns false without waiting when every slot is still unconsumed
+    boolean offer(long timestampMillis, AuditEventType type, String actor, String target, String detail) {
+        long sequence;
+        do {
+            sequence = next.get();
+            if (sequence - consumed.get() >= slots.length) {
+                return false;
+            }
+        } while (!next.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        Slot slot = slots[index];
+        slot.timestampMillis = timestampMillis;
+        slot.type = type;
+        slot.actor = actor;
+        slot.target = target;
+        slot.detail = detail;
+        // Release store: the slot fields above become visible to the consumer with it
+        published.setRelease(index, sequence);
+        return true;
+    }
+
+    // Consumer thread only
+    int drainTo(List<AuditRecord> out, int max) {
+        long sequence = consumed.get();
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (sequence & mask);
+            if (published.getAcquire(index) != sequence) {
+                break;
+            }
+            Slot slot = slots[index];
+            out.add(new AuditRecord(Instant.ofEpochMilli(slot.timestampMillis), slot.type, slot.actor,
+                    slot.target, slot.detail));
+            slot.actor = slot.target = slot.detail = null;
+            sequence++;
+            drained++;
+        }
+        if (drained > 0) {
+            consumed.set(sequence);
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        return consumed.get() == next.get();
+    }
+
+    private static final class Slot {
+        long timestampMillis;
+        AuditEventType type;
+        String actor;
+        String target;
+        String detail;
+    }
+}
@@ -0,0 +1,13 @@
+package com.secure.notes.audit;
+
+import java.io.IOException;
+import java.util.List;
+
+interface AuditSink extends AutoCloseable {
+
+    void write(List<AuditRecord> batch) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
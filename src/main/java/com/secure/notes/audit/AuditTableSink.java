@@ -0,0 +1,25 @@
+package com.secure.notes.audit;
+
+import com.secure.notes.models.AuditEntry;
+import com.secure.notes.repositories.AuditEntryRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// One transaction per batch
+class AuditTableSink implements AuditSink {
+
+    private final AuditEntryRepository repository;
+    private final TransactionTemplate transactionTemplate;
+
+    AuditTableSink(AuditEntryRepository repository, TransactionTemplate transactionTemplate) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void write(List<AuditRecord> batch) {
+        List<AuditEntry> entries = batch.stream().map(AuditEntry::from).toList();
+        transactionTemplate.executeWithoutResult(status -> repository.saveAll(entries));
+    }
+}
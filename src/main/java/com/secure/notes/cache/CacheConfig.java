@@ -0,0 +1,67 @@
+package com.secure.notes.cache;
+
+import com.secure.notes.security.jwt.VerifiedToken;
+import com.secure.notes.security.services.UserDetailsImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.app.cache.redis-enabled", havingValue = "true")
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.app.cache.redis-enabled", havingValue = "true")
+    public SharedCacheStore redisSharedCacheStore(RedisConnectionFactory connectionFactory,
+                                                  RedisMessageListenerContainer cacheInvalidationListenerContainer) {
+        return new RedisSharedCacheStore(connectionFactory, cacheInvalidationListenerContainer);
+    }
+
+    @Bean
+    public TieredCache<UserDetailsImpl> userDetailsCache(CacheProperties properties,
+                                                         ObjectProvider<SharedCacheStore> sharedStore) {
+        return new TieredCache<>("users", UserDetailsImpl.class,
+                properties.getLocalMaximumSize(), properties.getUserTtl(), sharedStore.getIfAvailable());
+    }
+
+    @Bean
+    public TieredCache<VerifiedToken> verifiedTokenCache(CacheProperties properties,
+                                                         ObjectProvider<SharedCacheStore> sharedStore) {
+        return new TieredCache<>("tokens", VerifiedToken.class,
+                properties.getLocalMaximumSize(), properties.getTokenTtl(), sharedStore.getIfAvailable());
+    }
+
+    @Bean
+    public TieredCache<NoteList> noteListCache(CacheProperties properties,
+                                               ObjectProvider<SharedCacheStore> sharedStore) {
+        // Decrypted note bodies stay on the node; the shared store only carries the evictions
+        return new TieredCache<>("notes", NoteList.class,
+                properties.getLocalMaximumSize(), properties.getNoteTtl(), sharedStore.getIfAvailable(), false);
+    }
+
+    @Bean
+    public TieredCache<NoteGrants> noteGrantsCache(CacheProperties properties,
+                                                   ObjectProvider<SharedCacheStore> sharedStore) {
+        return new TieredCache<>("grants", NoteGrants.class,
+                properties.getLocalMaximumSize(), properties.getGrantTtl(), sharedStore.getIfAvailable());
+    }
+
+    @Bean
+    public TieredCache<NoteFacets> noteFacetsCache(CacheProperties properties,
+                                                   ObjectProvider<SharedCacheStore> sharedStore) {
+        return new TieredCache<>("facets", NoteFacets.class,
+                properties.getLocalMaximumSize(), properties.getFacetTtl(), sharedStore.getIfAvailable());
+    }
+}
@@ -0,0 +1,27 @@
+package com.secure.notes.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "spring.app.cache")
+public class CacheProperties {
+
+    // Use Redis as the shared tier; without it each node only has its near cache
+    private boolean redisEnabled = false;
+
+    private long localMaximumSize = 10_000;
+
+    private Duration userTtl = Duration.ofMinutes(5);
+
+    private Duration tokenTtl = Duration.ofMinutes(5);
+
+    private Duration noteTtl = Duration.ofMinutes(1);
+
+    // Grant changes evict on every node, so this only bounds how long a missed eviction lasts
+    private Duration grantTtl = Duration.ofMinutes(5);
+
+    private Duration facetTtl = Duration.ofMinutes(5);
+}
@@ -0,0 +1,54 @@
+package com.secure.notes.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Single-JVM stand-in for Redis. Several {@link TieredCache} instances sharing one store
+ * behave like separate nodes of a cluster, which is what the tests rely on.
+ */
+public class InMemorySharedCacheStore implements SharedCacheStore {
+
+    private record Entry(byte[] value, long expiresAtNanos) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public byte[] get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos() > 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        entries.put(key, new Entry(value, System.nanoTime() + ttl.toNanos()));
+    }
+
+    @Override
+    public void delete(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        listeners.getOrDefault(channel, List.of()).forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+}
@@ -0,0 +1,15 @@
+package com.secure.notes.cache;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Cached note counts of one user per folder and per tag, as shown in the sidebar.
+ */
+public record NoteFacets(Map<String, Long> folders, Map<String, Long> tags) implements Serializable {
+
+    public NoteFacets {
+        folders = Map.copyOf(folders);
+        tags = Map.copyOf(tags);
+    }
+}
@@ -0,0 +1,19 @@
+package com.secure.notes.cache;
+
+import com.secure.notes.models.NotePermission;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Cached snapshot of every note shared with one user, by note id.
+ */
+public record NoteGrants(Map<Long, Grant> grants) implements Serializable {
+
+    public NoteGrants {
+        grants = Map.copyOf(grants);
+    }
+
+    public record Grant(String ownerUsername, NotePermission permission) implements Serializable {
+    }
+}
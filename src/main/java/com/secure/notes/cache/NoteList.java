@@ -0,0 +1,16 @@
+package com.secure.notes.cache;
+
+import com.secure.notes.models.Note;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Cached snapshot of one user's notes.
+ */
+public record NoteList(List<Note> notes) implements Serializable {
+
+    public NoteList {
+        notes = List.copyOf(notes);
+    }
+}
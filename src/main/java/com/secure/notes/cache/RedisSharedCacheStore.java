@@ -0,0 +1,57 @@
+package com.secure.notes.cache;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+public class RedisSharedCacheStore implements SharedCacheStore {
+
+    private final RedisTemplate<String, byte[]> template;
+    private final StringRedisTemplate messageTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    public RedisSharedCacheStore(RedisConnectionFactory connectionFactory,
+                                 RedisMessageListenerContainer listenerContainer) {
+        this.template = new RedisTemplate<>();
+        this.template.setConnectionFactory(connectionFactory);
+        this.template.setKeySerializer(RedisSerializer.string());
+        this.template.setValueSerializer(RedisSerializer.byteArray());
+        this.template.afterPropertiesSet();
+        this.messageTemplate = new StringRedisTemplate(connectionFactory);
+        this.listenerContainer = listenerContainer;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return template.opsForValue().get(key);
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        template.opsForValue().set(key, value, ttl);
+    }
+
+    @Override
+    public void delete(String key) {
+        template.delete(key);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        messageTemplate.convertAndSend(channel, message);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listenerContainer.addMessageListener(
+                (message, pattern) -> listener.accept(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+    }
+}
@@ -0,0 +1,20 @@
+package com.secure.notes.cache;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Cluster-wide key/value store with pub/sub, shared by every instance behind the load balancer.
+ */
+public interface SharedCacheStore {
+
+    byte[] get(String key);
+
+    void put(String key, byte[] value, Duration ttl);
+
+    void delete(String key);
+
+    void publish(String channel, String message);
+
+    void subscribe(String channel, Consumer<String> listener);
+}
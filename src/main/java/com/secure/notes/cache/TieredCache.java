@@ -0,0 +1,209 @@
+package com.secure.notes.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Two-level cache: a bounded per-node near cache in front of an optional {@link SharedCacheStore}.
+ * Evictions are broadcast on the store's pub/sub channel so every node drops its local copy.
+ * Values cross the network with JDK serialization, restricted to application, JDK and
+ * Spring Security types.
+ *
+ * <p>A value loaded through {@link #get(String, Function)} is dropped again when the key was
+ * evicted while it loaded, and evictions inside a transaction are repeated once it completes,
+ * so a load that read the old rows cannot outlive the change.
+ *
+ * <p>Caches of sensitive values can keep them local: values then never leave the node, and
+ * only evictions go through the shared store.
+ */
+public class TieredCache<V extends Serializable> {
+    private static final Logger logger = LoggerFactory.getLogger(TieredCache.class);
+
+    // Keys share generation counters by hash; a collision only costs a skipped put
+    private static final int GENERATION_STRIPES = 1024;
+
+    private static final ObjectInputFilter DESERIALIZATION_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=20;com.secure.notes.**;java.**;org.springframework.security.core.**;!*");
+
+    private final String name;
+    private final Class<V> type;
+    private final Duration ttl;
+    private final Cache<String, V> local;
+    private final SharedCacheStore shared;
+    private final boolean shareValues;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public TieredCache(String name, Class<V> type, long localMaximumSize, Duration ttl, SharedCacheStore shared) {
+        this(name, type, localMaximumSize, ttl, shared, true);
+    }
+
+    public TieredCache(String name, Class<V> type, long localMaximumSize, Duration ttl, SharedCacheStore shared,
+                       boolean shareValues) {
+        this.name = name;
+        this.type = type;
+        this.ttl = ttl;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.shared = shared;
+        this.shareValues = shareValues;
+        if (shared != null) {
+            shared.subscribe(invalidationChannel(), this::invalidateLocal);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public V get(String key) {
+        V value = local.getIfPresent(key);
+        if (value != null || shared == null || !shareValues) {
+            return value;
+        }
+        try {
+            byte[] bytes = shared.get(sharedKey(key));
+            if (bytes != null) {
+                value = deserialize(bytes);
+                local.put(key, value);
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Shared cache {} unavailable on get: {}", name, e.getMessage());
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value, or loads, caches and returns it. A {@code null} from the
+     * loader is returned as is and not cached.
+     */
+    public V get(String key, Function<String, V> loader) {
+        long generation = generations.get(stripe(key));
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+                // Checked after the put: an eviction either bumped the generation first or removes the value itself
+                if (generations.get(stripe(key)) != generation) {
+                    local.invalidate(key);
+                    deleteShared(key);
+                }
+            }
+        }
+        return value;
+    }
+
+    public void put(String key, V value) {
+        local.put(key, value);
+        if (shared == null || !shareValues) {
+            return;
+        }
+        try {
+            shared.put(sharedKey(key), serialize(value), ttl);
+        } catch (RuntimeException e) {
+            logger.debug("Shared cache {} unavailable on put: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the entry here, in the shared store and, through pub/sub, on every other node.
+     * Inside a transaction the eviction is repeated after it completes, so a load that read the
+     * rows before the commit is evicted as well.
+     */
+    public void evict(String key) {
+        evictNow(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(key);
+                }
+            });
+        }
+    }
+
+    private void evictNow(String key) {
+        invalidateLocal(key);
+        if (shared == null) {
+            return;
+        }
+        try {
+            if (shareValues) {
+                shared.delete(sharedKey(key));
+            }
+            shared.publish(invalidationChannel(), key);
+        } catch (RuntimeException e) {
+            logger.warn("Shared cache {} unavailable on evict of {}: {}", name, key, e.getMessage());
+        }
+    }
+
+    private void invalidateLocal(String key) {
+        generations.incrementAndGet(stripe(key));
+        local.invalidate(key);
+    }
+
+    private void deleteShared(String key) {
+        if (shared == null || !shareValues) {
+            return;
+        }
+        try {
+            shared.delete(sharedKey(key));
+        } catch (RuntimeException e) {
+            logger.debug("Shared cache {} unavailable on delete: {}", name, e.getMessage());
+        }
+    }
+
+    private static int stripe(String key) {
+        return Math.floorMod(key.hashCode(), GENERATION_STRIPES);
+    }
+
+    public CacheStats localStats() {
+        return local.stats();
+    }
+
+    private String sharedKey(String key) {
+        return "notes:cache:" + name + ":" + key;
+    }
+
+    private String invalidationChannel() {
+        return "notes:cache:invalidate:" + name;
+    }
+
+    private byte[] serialize(V value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize value for cache " + name, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private V deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(DESERIALIZATION_FILTER);
+            return type.cast(in.readObject());
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot deserialize value from cache " + name, e);
+        }
+    }
+}
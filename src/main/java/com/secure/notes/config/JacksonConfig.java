@@ -0,0 +1,17 @@
+package com.secure.notes.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // Spring Boot registers Module beans with the shared ObjectMapper. Blackbird replaces
+    // reflective getter and constructor calls with generated lambdas.
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -1,14 +1,22 @@
 package com.secure.notes.controllers;
 
+import com.secure.notes.audit.AuditEventType;
+import com.secure.notes.dtos.AuditEntryResponse;
 import com.secure.notes.dtos.UserDTO;
-import com.secure.notes.models.User;
+import com.secure.notes.dtos.UserSummaryResponse;
+import com.secure.notes.repositories.AuditEntryRepository;
+import com.secure.notes.security.revocation.TokenRevocationService;
 import com.secure.notes.services.UserService;
+import com.secure.notes.sharding.ShardRebalancer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -19,9 +27,22 @@ public class AdminController {
     @Autowired
     UserService userService;
 
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    AuditEntryRepository auditEntryRepository;
+
+    // Only with spring.app.sharding.enabled
+    @Autowired(required = false)
+    ShardRebalancer shardRebalancer;
+
+    @Value("${spring.app.jwtExpirationMs}")
+    private long jwtExpirationMs;
+
     @GetMapping("/getusers")
-    public ResponseEntity<List<User>> getAllUsers() {
-        return new ResponseEntity<>(userService.getAllUsers(),
+    public ResponseEntity<List<UserSummaryResponse>> getAllUsers() {
+        return new ResponseEntity<>(userService.getAllUsers().stream().map(UserSummaryResponse::from).toList(),
                 HttpStatus.OK);
     }
 
@@ -32,6 +53,43 @@ public class AdminController {
         return ResponseEntity.ok("User role updated");
     }
 
+    // The token's real expiry is unknown here, so keep the entry for the longest possible lifetime
+    @PostMapping("/revoke-token")
+    public ResponseEntity<String> revokeToken(@RequestParam String jti) {
+        tokenRevocationService.revoke(jti, Instant.now().plusMillis(jwtExpirationMs));
+        return ResponseEntity.ok("Token revoked");
+    }
+
+    // Newest first, paged without a count query. Events reach the table a few
+    // milliseconds after they happen, once the audit writer has drained them
+    @GetMapping("/audit")
+    public ResponseEntity<List<AuditEntryResponse>> getAuditEvents(@RequestParam(required = false) String actor,
+                                                                  @RequestParam(required = false) AuditEventType type,
+                                                                  @RequestParam(required = false) Instant from,
+                                                                  @RequestParam(required = false) Instant to,
+                                                                  @RequestParam(defaultValue = "0") int page,
+                                                                  @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(auditEntryRepository.search(actor, type, from, to,
+                PageRequest.of(page, Math.min(size, 500))).stream().map(AuditEntryResponse::from).toList());
+    }
+
+    // Moves owners onto joining shards and off draining ones; progress via GET
+    @PostMapping("/shards/rebalance")
+    public ResponseEntity<ShardRebalancer.Status> startShardRebalancing() {
+        if (shardRebalancer == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.accepted().body(shardRebalancer.start());
+    }
+
+    @GetMapping("/shards/rebalance")
+    public ResponseEntity<ShardRebalancer.Status> getShardRebalancingStatus() {
+        if (shardRebalancer == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(shardRebalancer.status());
+    }
+
     @GetMapping("/user/{id}")
     public ResponseEntity<UserDTO> getUser(@PathVariable Long id) {
         return new ResponseEntity<>(userService.getUserById(id),
@@ -1,17 +1,26 @@
 package com.secure.notes.controllers;
 
+import com.secure.notes.audit.AuditEventType;
+import com.secure.notes.audit.AuditLog;
 import com.secure.notes.models.AppRole;
 import com.secure.notes.models.Role;
 import com.secure.notes.models.User;
 import com.secure.notes.repositories.RoleRepository;
 import com.secure.notes.repositories.UserRepository;
+import com.secure.notes.security.jwt.InvalidRefreshTokenException;
 import com.secure.notes.security.jwt.JwtUtils;
+import com.secure.notes.security.jwt.VerifiedToken;
 import com.secure.notes.security.request.LoginRequest;
 import com.secure.notes.security.request.SignupRequest;
+import com.secure.notes.security.request.TokenRefreshRequest;
 import com.secure.notes.security.response.LoginResponse;
 import com.secure.notes.security.response.MessageResponse;
 import com.secure.notes.security.response.UserInfoResponse;
+import com.secure.notes.security.revocation.TokenRevocationService;
+import com.secure.notes.security.services.RefreshTokenService;
+import com.secure.notes.security.services.UserDetailsImpl;
 import com.secure.notes.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -26,6 +35,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -55,6 +65,15 @@ public class AuthController {
     @Autowired
     UserService userService;
 
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    RefreshTokenService refreshTokenService;
+
+    @Autowired
+    AuditLog auditLog;
+
     @PostMapping("/public/signin")
     public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
         Authentication authentication;
@@ -62,6 +81,8 @@ public class AuthController {
             authentication = authenticationManager
                     .authenticate(new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
         } catch (AuthenticationException exception) {
+            auditLog.record(AuditEventType.SIGNIN_FAILURE, loginRequest.getUsername(), null,
+                    exception.getClass().getSimpleName());
             Map<String, Object> map = new HashMap<>();
             map.put("message", "Bad credentials");
             map.put("status", false);
@@ -74,21 +95,45 @@ public class AuthController {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
         String jwtToken = jwtUtils.generateTokenFromUsername(userDetails);
+        String refreshToken = refreshTokenService.issue(((UserDetailsImpl) userDetails).getId());
+        auditLog.record(AuditEventType.SIGNIN_SUCCESS, userDetails.getUsername(), null, null);
 
         // Collect roles from the UserDetails
         List<String> roles = userDetails.getAuthorities().stream()
                 .map(item -> item.getAuthority())
                 .collect(Collectors.toList());
 
-        // Prepare the response body, now including the JWT token directly in the body
+        // Prepare the response body, now including the access and refresh tokens directly in the body
         LoginResponse response = new LoginResponse(userDetails.getUsername(),
-                roles, jwtToken);
+                roles, jwtToken, refreshToken);
 
         // Return the response entity with the JWT token included in the response body
         return ResponseEntity.ok(response);
     }
 
 
+    // The only authentication path that reads the database after signin
+    @PostMapping("/public/refreshtoken")
+    public ResponseEntity<?> refreshToken(@RequestBody TokenRefreshRequest request) {
+        RefreshTokenService.Rotation rotation;
+        try {
+            rotation = refreshTokenService.rotate(request.getRefreshToken());
+        } catch (InvalidRefreshTokenException exception) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("message", exception.getMessage());
+            map.put("status", false);
+            return new ResponseEntity<Object>(map, HttpStatus.UNAUTHORIZED);
+        }
+
+        UserDetailsImpl userDetails = rotation.userDetails();
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(item -> item.getAuthority())
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(new LoginResponse(userDetails.getUsername(), roles,
+                jwtUtils.generateTokenFromUsername(userDetails), rotation.refreshToken()));
+    }
+
     @PostMapping("/public/signup")
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         if (userRepository.existsByUserName(signUpRequest.getUsername())) {
@@ -131,6 +176,7 @@ public class AuthController {
         }
         user.setRole(role);
         userRepository.save(user);
+        auditLog.record(AuditEventType.SIGNUP, user.getUserName(), null, role.getRoleName().name());
 
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
@@ -161,6 +207,22 @@ public class AuthController {
         return ResponseEntity.ok().body(response);
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(HttpServletRequest request,
+                                    @RequestBody(required = false) TokenRefreshRequest refreshRequest) {
+        if (refreshRequest != null && refreshRequest.getRefreshToken() != null) {
+            refreshTokenService.revokeFamilyOf(refreshRequest.getRefreshToken());
+        }
+        String jwt = jwtUtils.getJwtFromHeader(request);
+        VerifiedToken token = jwt != null ? jwtUtils.verifyJwtToken(jwt) : null;
+        if (token == null || token.jti() == null) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Token cannot be revoked!"));
+        }
+        tokenRevocationService.revoke(token.jti(), Instant.ofEpochMilli(token.expiresAtMillis()));
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok(new MessageResponse("Logged out successfully!"));
+    }
+
     @GetMapping("/username")
     public String currentUserName(@AuthenticationPrincipal UserDetails userDetails) {
         return (userDetails != null) ? userDetails.getUsername() : "";
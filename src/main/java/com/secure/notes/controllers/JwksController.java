@@ -0,0 +1,26 @@
+package com.secure.notes.controllers;
+
+import com.secure.notes.security.jwt.JwtKeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+public class JwksController {
+
+    @Autowired
+    JwtKeyRing jwtKeyRing;
+
+    // Under /api/auth/public/** so it is reachable without a token
+    @GetMapping("/api/auth/public/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(jwtKeyRing.jwks());
+    }
+}
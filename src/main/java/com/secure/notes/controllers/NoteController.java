@@ -1,12 +1,29 @@
 package com.secure.notes.controllers;
 
+import com.secure.notes.cache.NoteFacets;
+import com.secure.notes.dtos.NoteResponse;
+import com.secure.notes.dtos.NoteRevisionDTO;
+import com.secure.notes.dtos.NoteShareResponse;
+import com.secure.notes.dtos.SharedNoteResponse;
+import com.secure.notes.events.NoteEventBroadcaster;
 import com.secure.notes.models.Note;
+import com.secure.notes.models.NoteImport;
+import com.secure.notes.models.NotePermission;
+import com.secure.notes.services.NoteArchiveService;
+import com.secure.notes.services.NoteRevisionService;
 import com.secure.notes.services.NoteService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -16,27 +33,54 @@ public class NoteController {
     @Autowired
     private NoteService noteService;
 
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private NoteArchiveService noteArchiveService;
+
+    @Autowired
+    private NoteEventBroadcaster noteEventBroadcaster;
+
     @PostMapping
-    public Note createNote(@RequestBody String content,
-                           @AuthenticationPrincipal UserDetails userDetails) {
+    public NoteResponse createNote(@RequestBody String content,
+                                   @AuthenticationPrincipal UserDetails userDetails) {
         String username = userDetails.getUsername();
-        System.out.println("USER DETAILS: " + username);
-        return noteService.createNoteForUser(username, content);
+        return NoteResponse.from(noteService.createNoteForUser(username, content));
     }
 
+    // Without parameters every note, as cached; with a filter or cursor one page, continued with ?after=<last id>
     @GetMapping
-    public List<Note> getUserNotes(@AuthenticationPrincipal UserDetails userDetails) {
+    public List<NoteResponse> getUserNotes(@RequestParam(required = false) String folder,
+                                           @RequestParam(required = false) String tag,
+                                           @RequestParam(required = false) Long after,
+                                           @RequestParam(defaultValue = "100") int limit,
+                                           @AuthenticationPrincipal UserDetails userDetails) {
         String username = userDetails.getUsername();
-        System.out.println("USER DETAILS: " + username);
-        return noteService.getNotesForUser(username);
+        List<Note> notes = folder == null && tag == null && after == null
+                ? noteService.getNotesForUser(username)
+                : noteService.getNotesForUser(username, folder, tag, after, limit);
+        return notes.stream().map(NoteResponse::from).toList();
+    }
+
+    // Note counts per folder and per tag
+    @GetMapping("/facets")
+    public NoteFacets getNoteFacets(@AuthenticationPrincipal UserDetails userDetails) {
+        return noteService.getFacetsForUser(userDetails.getUsername());
+    }
+
+    // Notes of other users shared with the caller, with what the caller may do with each
+    @GetMapping("/shared")
+    public List<SharedNoteResponse> getSharedNotes(@AuthenticationPrincipal UserDetails userDetails) {
+        return noteService.getNotesSharedWithUser(userDetails.getUsername());
     }
 
     @PutMapping("/{noteId}")
-    public Note updateNote(@PathVariable Long noteId,
-                           @RequestBody String content,
-                           @AuthenticationPrincipal UserDetails userDetails) {
+    public NoteResponse updateNote(@PathVariable Long noteId,
+                                   @RequestBody String content,
+                                   @AuthenticationPrincipal UserDetails userDetails) {
         String username = userDetails.getUsername();
-        return noteService.updateNoteForUser(noteId, content, username);
+        return NoteResponse.from(noteService.updateNoteForUser(noteId, content, username));
     }
 
     @DeleteMapping("/{noteId}")
@@ -45,4 +89,95 @@ public class NoteController {
         String username = userDetails.getUsername();
         noteService.deleteNoteForUser(noteId, username);
     }
+
+    // Without a folder the note leaves its folder
+    @PutMapping("/{noteId}/folder")
+    public NoteResponse moveNote(@PathVariable Long noteId,
+                                 @RequestParam(required = false) String folder,
+                                 @AuthenticationPrincipal UserDetails userDetails) {
+        return NoteResponse.from(noteService.moveNoteToFolder(noteId, folder, userDetails.getUsername()));
+    }
+
+    // Replaces all tags of the note
+    @PutMapping("/{noteId}/tags")
+    public NoteResponse tagNote(@PathVariable Long noteId,
+                                @RequestBody List<String> tags,
+                                @AuthenticationPrincipal UserDetails userDetails) {
+        return NoteResponse.from(noteService.tagNote(noteId, tags, userDetails.getUsername()));
+    }
+
+    @GetMapping("/{noteId}/shares")
+    public List<NoteShareResponse> getNoteShares(@PathVariable Long noteId,
+                                                 @AuthenticationPrincipal UserDetails userDetails) {
+        return noteService.getShares(noteId, userDetails.getUsername()).stream().map(NoteShareResponse::from).toList();
+    }
+
+    @PutMapping("/{noteId}/shares/{granteeUsername}")
+    public NoteShareResponse shareNote(@PathVariable Long noteId,
+                                       @PathVariable String granteeUsername,
+                                       @RequestParam(defaultValue = "READ") NotePermission permission,
+                                       @AuthenticationPrincipal UserDetails userDetails) {
+        return NoteShareResponse.from(noteService.shareNote(noteId, granteeUsername, permission,
+                userDetails.getUsername()));
+    }
+
+    @DeleteMapping("/{noteId}/shares/{granteeUsername}")
+    public void unshareNote(@PathVariable Long noteId,
+                            @PathVariable String granteeUsername,
+                            @AuthenticationPrincipal UserDetails userDetails) {
+        noteService.unshareNote(noteId, granteeUsername, userDetails.getUsername());
+    }
+
+    @GetMapping("/{noteId}/history")
+    public List<NoteRevisionDTO> getNoteHistory(@PathVariable Long noteId,
+                                                @AuthenticationPrincipal UserDetails userDetails) {
+        return noteRevisionService.getHistory(noteId, userDetails.getUsername());
+    }
+
+    @GetMapping("/{noteId}/history/{version}")
+    public NoteRevisionDTO getNoteRevision(@PathVariable Long noteId,
+                                           @PathVariable int version,
+                                           @AuthenticationPrincipal UserDetails userDetails) {
+        return noteRevisionService.getRevision(noteId, version, userDetails.getUsername());
+    }
+
+    // Restoring writes the old content as a new version, history is never rewritten
+    @PostMapping("/{noteId}/history/{version}/restore")
+    public NoteResponse restoreNoteRevision(@PathVariable Long noteId,
+                                            @PathVariable int version,
+                                            @AuthenticationPrincipal UserDetails userDetails) {
+        String username = userDetails.getUsername();
+        NoteRevisionDTO revision = noteRevisionService.getRevision(noteId, version, username);
+        return NoteResponse.from(noteService.updateNoteForUser(noteId, revision.getContent(), username));
+    }
+
+    // NDJSON, resumable with ?after=<last id received>
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportNotes(@RequestParam(required = false) Long after,
+                                                             @AuthenticationPrincipal UserDetails userDetails) {
+        String username = userDetails.getUsername();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notes-" + username + ".ndjson\"")
+                .body(out -> noteArchiveService.exportNotes(username, after, out));
+    }
+
+    // Resend the same archive with the same importId to resume after a failure
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "application/octet-stream"})
+    public NoteImport importNotes(@RequestParam String importId,
+                                  InputStream archive,
+                                  @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+        return noteArchiveService.importNotes(userDetails.getUsername(), importId, archive);
+    }
+
+    @GetMapping("/import/{importId}")
+    public NoteImport getImport(@PathVariable String importId,
+                                @AuthenticationPrincipal UserDetails userDetails) {
+        return noteArchiveService.getImport(userDetails.getUsername(), importId);
+    }
+
+    // One long-lived stream per device instead of polling GET /api/notes
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToNoteEvents(@AuthenticationPrincipal UserDetails userDetails) {
+        return noteEventBroadcaster.subscribe(userDetails.getUsername());
+    }
 }
@@ -0,0 +1,39 @@
+package com.secure.notes.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+
+/**
+ * Pools for database nodes besides the primary, i.e. replicas and shards. They start from the
+ * same {@code spring.datasource.hikari.*} settings as the primary (auto-commit, sizes, timeouts,
+ * data source properties, ...) and its URL parameters, and only override what differs per node.
+ */
+public final class NodeDataSources {
+
+    private NodeDataSources() {
+    }
+
+    // Username and password fall back to the primary's when the node has none of its own
+    public static HikariDataSource create(Binder binder, String poolName, String url, String username,
+                                          String password) {
+        HikariDataSource pool = new HikariDataSource();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(poolName);
+        pool.setJdbcUrl(nodeUrl(url, binder.bind("spring.datasource.url", String.class).orElse(null)));
+        pool.setUsername(username != null ? username
+                : binder.bind("spring.datasource.username", String.class).orElse(null));
+        pool.setPassword(password != null ? password
+                : binder.bind("spring.datasource.password", String.class).orElse(null));
+        return pool;
+    }
+
+    // Driver settings live in the primary's URL (see application-prod.properties), a node URL without
+    // its own parameters takes them over
+    static String nodeUrl(String nodeUrl, String primaryUrl) {
+        if (nodeUrl.contains("?") || primaryUrl == null || !primaryUrl.contains("?")) {
+            return nodeUrl;
+        }
+        return nodeUrl + primaryUrl.substring(primaryUrl.indexOf('?'));
+    }
+}
@@ -0,0 +1,65 @@
+package com.secure.notes.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource with one that routes read-only transactions
+ * to the replicas listed under {@code spring.app.datasource.replica.nodes}.
+ * Enabled with {@code spring.app.datasource.replica.enabled=true}. Not together with sharding,
+ * whose routing DataSource replaces the same bean; ShardingConfig refuses to start with both.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnExpression("${spring.app.datasource.replica.enabled:false} and !${spring.app.sharding.enabled:false}")
+public class ReplicaDataSourceConfig {
+
+    // Bound to spring.datasource.hikari.* so the primary keeps the regular pool settings
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(ReplicaProperties replicaProperties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        int index = 0;
+        for (ReplicaProperties.Node node : replicaProperties.getNodes()) {
+            String name = node.getName() != null ? node.getName() : "replica-" + index;
+            HikariDataSource replica = NodeDataSources.create(binder, "notes-" + name, node.getUrl(),
+                    node.getUsername(), node.getPassword());
+            if (node.getMaximumPoolSize() != null) {
+                replica.setMaximumPoolSize(node.getMaximumPoolSize());
+                replica.setMinimumIdle(Math.min(replica.getMinimumIdle(), node.getMaximumPoolSize()));
+            }
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+            index++;
+        }
+        return new ReplicaHealthMonitor(replicas, replicaProperties);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaHealthMonitor replicaHealthMonitor) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaHealthMonitor));
+    }
+}
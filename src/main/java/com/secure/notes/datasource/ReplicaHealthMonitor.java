@@ -0,0 +1,123 @@
+package com.secure.notes.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks which replicas may serve reads. A replica is taken out of rotation when it
+ * cannot be reached or when its replication lag exceeds {@code maxLagSeconds}, and is
+ * put back by the next successful check.
+ */
+public class ReplicaHealthMonitor implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthMonitor.class);
+
+    private final Map<String, DataSource> replicas;
+    private final ReplicaProperties properties;
+
+    // Replaced wholesale on every change so the routing path only does a volatile read
+    private volatile List<String> healthy;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaHealthMonitor(Map<String, DataSource> replicas, ReplicaProperties properties) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.properties = properties;
+        this.healthy = List.copyOf(replicas.keySet());
+    }
+
+    /**
+     * Returns the name of the next healthy replica in round-robin order,
+     * or {@code null} when reads must fall back to the primary.
+     */
+    public String nextHealthyReplica() {
+        List<String> current = healthy;
+        if (current.isEmpty()) {
+            return null;
+        }
+        return current.get(Math.floorMod(next.getAndIncrement(), current.size()));
+    }
+
+    public DataSource getReplica(String name) {
+        return replicas.get(name);
+    }
+
+    public void markUnhealthy(String name, Exception cause) {
+        synchronized (this) {
+            if (!healthy.contains(name)) {
+                return;
+            }
+            List<String> updated = new ArrayList<>(healthy);
+            updated.remove(name);
+            healthy = List.copyOf(updated);
+        }
+        logger.warn("Replica {} removed from read rotation: {}", name, cause.getMessage());
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.datasource.replica.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        List<String> updated = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            try {
+                long lag = measureLag(replica.getValue());
+                if (lag <= properties.getMaxLagSeconds()) {
+                    updated.add(replica.getKey());
+                } else {
+                    logger.warn("Replica {} is {}s behind the primary, routing its reads to the primary",
+                            replica.getKey(), lag);
+                }
+            } catch (SQLException e) {
+                logger.warn("Replica {} health check failed: {}", replica.getKey(), e.getMessage());
+            }
+        }
+        synchronized (this) {
+            if (!updated.equals(healthy)) {
+                logger.info("Healthy replicas: {}", updated);
+            }
+            healthy = List.copyOf(updated);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private long measureLag(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!StringUtils.hasText(properties.getLagQuery())) {
+                if (!connection.isValid(1)) {
+                    throw new SQLException("Connection is not valid");
+                }
+                return 0;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(properties.getLagQuery())) {
+                if (!rs.next()) {
+                    throw new SQLException("Replication is not configured");
+                }
+                long lag = rs.getLong(properties.getLagColumn());
+                if (rs.wasNull()) {
+                    throw new SQLException("Replication is not running");
+                }
+                return lag;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.secure.notes.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "spring.app.datasource.replica")
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+
+    // Replicas lagging further behind the primary than this stop receiving reads
+    private long maxLagSeconds = 5;
+
+    private long healthCheckIntervalMs = 5000;
+
+    // Leave blank for stand-ins that are not real MySQL replicas (e.g. a second H2 database),
+    // in which case only connectivity is checked
+    private String lagQuery = "SHOW REPLICA STATUS";
+
+    private String lagColumn = "Seconds_Behind_Source";
+
+    private List<Node> nodes = new ArrayList<>();
+
+    @Data
+    public static class Node {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        // Defaults to the primary's spring.datasource.hikari.maximum-pool-size
+        private Integer maximumPoolSize;
+    }
+}
@@ -0,0 +1,46 @@
+package com.secure.notes.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends connections requested inside {@code @Transactional(readOnly = true)} to a healthy
+ * replica and everything else to the primary. Must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so the
+ * connection is only fetched once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ReplicaHealthMonitor monitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaHealthMonitor monitor) {
+        this.primary = primary;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            String replica = monitor.nextHealthyReplica();
+            if (replica != null) {
+                try {
+                    return monitor.getReplica(replica).getConnection();
+                } catch (SQLException e) {
+                    // Fail over to the primary now, the next health check decides when the replica returns
+                    monitor.markUnhealthy(replica, e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+}
@@ -0,0 +1,16 @@
+package com.secure.notes.dtos;
+
+import com.secure.notes.audit.AuditEventType;
+import com.secure.notes.models.AuditEntry;
+
+import java.time.Instant;
+
+// Row of the admin audit log; keeps the entity, and any column added to it later, out of the API
+public record AuditEntryResponse(Long id, Instant eventTime, AuditEventType type, String actor, String target,
+                                 String detail) {
+
+    public static AuditEntryResponse from(AuditEntry entry) {
+        return new AuditEntryResponse(entry.getId(), entry.getEventTime(), entry.getType(), entry.getActor(),
+                entry.getTarget(), entry.getDetail());
+    }
+}
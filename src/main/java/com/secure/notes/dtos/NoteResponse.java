@@ -0,0 +1,16 @@
+package com.secure.notes.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.secure.notes.models.Note;
+
+import java.util.List;
+
+// What clients see of a note; keeps entity-only fields out of the JSON and leaves out an unset folder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record NoteResponse(Long id, String content, String ownerUsername, String folder, List<String> tags) {
+
+    public static NoteResponse from(Note note) {
+        return new NoteResponse(note.getId(), note.getContent(), note.getOwnerUsername(), note.getFolder(),
+                note.getTags());
+    }
+}
@@ -0,0 +1,18 @@
+package com.secure.notes.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteRevisionDTO {
+    private Long noteId;
+    private int version;
+    private LocalDateTime createdDate;
+    // Only filled in when a single revision is requested
+    private String content;
+}
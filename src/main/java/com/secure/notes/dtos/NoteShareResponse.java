@@ -0,0 +1,16 @@
+package com.secure.notes.dtos;
+
+import com.secure.notes.models.NotePermission;
+import com.secure.notes.models.NoteShare;
+
+import java.time.LocalDateTime;
+
+// One grant on a note as shown to its owner; the entity's routing columns stay out of the API
+public record NoteShareResponse(Long noteId, String granteeUsername, NotePermission permission,
+                                LocalDateTime createdDate, LocalDateTime updatedDate) {
+
+    public static NoteShareResponse from(NoteShare share) {
+        return new NoteShareResponse(share.getNoteId(), share.getGranteeUsername(), share.getPermission(),
+                share.getCreatedDate(), share.getUpdatedDate());
+    }
+}
@@ -0,0 +1,12 @@
+package com.secure.notes.dtos;
+
+import com.secure.notes.models.Note;
+import com.secure.notes.models.NotePermission;
+
+// A note of another user as seen by someone it was shared with
+public record SharedNoteResponse(Long id, String content, String ownerUsername, NotePermission permission) {
+
+    public static SharedNoteResponse from(Note note, NotePermission permission) {
+        return new SharedNoteResponse(note.getId(), note.getContent(), note.getOwnerUsername(), permission);
+    }
+}
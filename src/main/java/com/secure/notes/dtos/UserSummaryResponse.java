@@ -0,0 +1,43 @@
+package com.secure.notes.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.secure.notes.models.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Row of the admin user list. Never includes the password hash or the 2FA secret, and leaves out unset fields.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserSummaryResponse(Long userId,
+                                  String userName,
+                                  String email,
+                                  boolean accountNonLocked,
+                                  boolean accountNonExpired,
+                                  boolean credentialsNonExpired,
+                                  boolean enabled,
+                                  LocalDate credentialsExpiryDate,
+                                  LocalDate accountExpiryDate,
+                                  boolean twoFactorEnabled,
+                                  String signUpMethod,
+                                  String roleName,
+                                  LocalDateTime createdDate,
+                                  LocalDateTime updatedDate) {
+
+    public static UserSummaryResponse from(User user) {
+        return new UserSummaryResponse(
+                user.getUserId(),
+                user.getUserName(),
+                user.getEmail(),
+                user.isAccountNonLocked(),
+                user.isAccountNonExpired(),
+                user.isCredentialsNonExpired(),
+                user.isEnabled(),
+                user.getCredentialsExpiryDate(),
+                user.getAccountExpiryDate(),
+                user.isTwoFactorEnabled(),
+                user.getSignUpMethod(),
+                user.getRole() != null ? user.getRole().getRoleName().name() : null,
+                user.getCreatedDate(),
+                user.getUpdatedDate());
+    }
+}
@@ -0,0 +1,12 @@
+package com.secure.notes.events;
+
+/**
+ * Published by NoteServiceImpl after a note of {@code ownerUsername} changed. Carries no
+ * content: subscribers fetch the note again, so nothing sensitive goes over the bus.
+ */
+public record NoteChangeEvent(String ownerUsername, Long noteId, Type type) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
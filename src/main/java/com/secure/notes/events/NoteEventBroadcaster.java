@@ -0,0 +1,132 @@
+package com.secure.notes.events;
+
+import com.secure.notes.cache.SharedCacheStore;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes note changes to the server-sent event streams of the owner's devices. Events reach
+ * this node through Spring's application events once the writing transaction has committed,
+ * and other nodes through the shared store's pub/sub when one is configured. An idle stream
+ * holds no thread, only its connection.
+ */
+@Component
+public class NoteEventBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(NoteEventBroadcaster.class);
+
+    private static final String EVENT_CHANNEL = "notes:events";
+
+    @Autowired
+    private ObjectProvider<SharedCacheStore> sharedStore;
+
+    @Value("${spring.app.notes.events.timeout:1h}")
+    private Duration timeout;
+
+    @Value("${spring.app.notes.events.max-streams-per-user:10}")
+    private int maxStreamsPerUser;
+
+    // Tells this node's own broadcasts apart when they come back from the channel
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Set<SseEmitter>> streams = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        SharedCacheStore store = sharedStore.getIfAvailable();
+        if (store != null) {
+            store.subscribe(EVENT_CHANNEL, this::onRemoteEvent);
+        }
+    }
+
+    public SseEmitter subscribe(String username) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        streams.compute(username, (key, userStreams) -> {
+            Set<SseEmitter> current = userStreams != null ? userStreams : ConcurrentHashMap.newKeySet();
+            if (current.size() >= maxStreamsPerUser) {
+                throw new RuntimeException("Too many open event streams");
+            }
+            current.add(emitter);
+            return current;
+        });
+        Runnable remove = () -> unsubscribe(username, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        // Sent right away so proxies commit the response and the client knows it is live
+        send(username, emitter, SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    // fallbackExecution: writes that run without a transaction are delivered immediately
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChange(NoteChangeEvent event) {
+        deliver(event);
+        SharedCacheStore store = sharedStore.getIfAvailable();
+        if (store != null) {
+            try {
+                store.publish(EVENT_CHANNEL, nodeId + "|" + event.type() + "|" + event.noteId()
+                        + "|" + event.ownerUsername());
+            } catch (RuntimeException e) {
+                logger.warn("Could not broadcast change of note {}: {}", event.noteId(), e.getMessage());
+            }
+        }
+    }
+
+    // Proxies and load balancers drop connections that stay silent, and a failed write is
+    // how a vanished client is noticed
+    @Scheduled(fixedDelayString = "${spring.app.notes.events.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        streams.forEach((username, userStreams) -> userStreams.forEach(emitter
+                -> send(username, emitter, SseEmitter.event().comment("ping"))));
+    }
+
+    private void onRemoteEvent(String message) {
+        String[] parts = message.split("\\|", 4);
+        if (parts.length != 4 || parts[0].equals(nodeId)) {
+            return;
+        }
+        deliver(new NoteChangeEvent(parts[3], Long.valueOf(parts[2]), NoteChangeEvent.Type.valueOf(parts[1])));
+    }
+
+    private void deliver(NoteChangeEvent event) {
+        Set<SseEmitter> userStreams = streams.get(event.ownerUsername());
+        if (userStreams == null) {
+            return;
+        }
+        for (SseEmitter emitter : userStreams) {
+            send(event.ownerUsername(), emitter, SseEmitter.event()
+                    .name(event.type().name().toLowerCase())
+                    .data(Map.of("noteId", event.noteId())));
+        }
+    }
+
+    private void send(String username, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(username, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(String username, SseEmitter emitter) {
+        streams.computeIfPresent(username, (key, userStreams) -> {
+            userStreams.remove(emitter);
+            return userStreams.isEmpty() ? null : userStreams;
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.secure.notes.models;
+
+import com.secure.notes.audit.AuditEventType;
+import com.secure.notes.audit.AuditRecord;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "audit_events", indexes = {
+        @Index(name = "idx_audit_event_time", columnList = "event_time"),
+        @Index(name = "idx_audit_actor_time", columnList = "actor, event_time")
+})
+public class AuditEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // When the event happened, not when the writer got to it
+    @Column(name = "event_time", nullable = false)
+    private Instant eventTime;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private AuditEventType type;
+
+    @Column(name = "actor")
+    private String actor;
+
+    private String target;
+
+    @Column(length = 1000)
+    private String detail;
+
+    public static AuditEntry from(AuditRecord record) {
+        AuditEntry entry = new AuditEntry();
+        entry.setEventTime(record.timestamp());
+        entry.setType(record.type());
+        entry.setActor(record.actor());
+        entry.setTarget(record.target());
+        entry.setDetail(record.detail());
+        return entry;
+    }
+}
@@ -1,18 +1,54 @@
 package com.secure.notes.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.io.Serializable;
+import java.util.List;
 
 @Entity
 @Data
-public class Note {
+// Content writes only touch content_hash, so they never undo a concurrent folder move
+@DynamicUpdate
+@Table(indexes = {
+        @Index(name = "idx_note_owner_username", columnList = "ownerUsername"),
+        @Index(name = "idx_note_content_hash", columnList = "contentHash"),
+        @Index(name = "idx_note_owner_folder", columnList = "ownerUsername, folder")
+})
+public class Note implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Lob
+    // Bodies live in note_blobs, deduplicated by hash; NoteContentStore fills this in
+    @Transient
     private String content;
 
+    @JsonIgnore
+    @Column(length = 64, columnDefinition = "char(64)")
+    private String contentHash;
+
     private String ownerUsername;
+
+    @Column(length = 100)
+    private String folder;
+
+    // Rows of note_tags, filled in by NoteServiceImpl for listings
+    @Transient
+    private List<String> tags = List.of();
+
+    // Detached copy; cached notes are handed out as copies so no request can change another's
+    public Note copy() {
+        Note copy = new Note();
+        copy.setId(id);
+        copy.setContent(content);
+        copy.setContentHash(contentHash);
+        copy.setOwnerUsername(ownerUsername);
+        copy.setFolder(folder);
+        copy.setTags(tags);
+        return copy;
+    }
 }
 
@@ -0,0 +1,51 @@
+package com.secure.notes.models;
+
+import com.secure.notes.security.crypto.SealedText;
+import com.secure.notes.security.crypto.SealedTextConverter;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "note_blobs", indexes = {
+        @Index(name = "idx_note_blobs_touched", columnList = "touchedDate"),
+        @Index(name = "idx_note_blobs_segment", columnList = "segmentId"),
+        @Index(name = "idx_note_blobs_content_key", columnList = "contentKeyId")
+})
+public class NoteBlob {
+    // Lower-case hex HMAC-SHA256 of the UTF-8 content under the owner's dedup key
+    // (plain SHA-256 for blobs not yet re-encrypted since V6)
+    @Id
+    @Column(length = 64, columnDefinition = "char(64)")
+    private String hash;
+
+    // Null once the body has been tiered out to a segment file
+    @Lob
+    @Convert(converter = SealedTextConverter.class)
+    private SealedText content;
+
+    // Data key of the body, in the table or tiered out; null for bodies written before encryption.
+    // Lets key rotation find its rows through an index instead of matching the sealed prefix
+    private Long contentKeyId;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    // Last time a note was written with this body
+    private LocalDateTime touchedDate;
+
+    // Location of a tiered body: the entry at segmentOffset in segment file segmentId,
+    // encrypted under data key segmentKeyId
+    private Integer segmentId;
+    private Long segmentOffset;
+    private Integer segmentLength;
+    private Long segmentKeyId;
+
+    public boolean isTiered() {
+        return content == null && segmentId != null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.secure.notes.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Number of notes of an owner in a folder or with a tag, kept current by NoteServiceImpl
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "note_facet_counts",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"ownerUsername", "type", "name"}))
+public class NoteFacetCount {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String ownerUsername;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private NoteFacetType type;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    private long noteCount;
+}
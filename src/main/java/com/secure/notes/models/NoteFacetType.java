@@ -0,0 +1,6 @@
+package com.secure.notes.models;
+
+public enum NoteFacetType {
+    FOLDER,
+    TAG
+}
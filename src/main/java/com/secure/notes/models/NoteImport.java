@@ -0,0 +1,50 @@
+package com.secure.notes.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+// Progress of an archive import, committed with each batch so a retry can resume
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "note_imports",
+        uniqueConstraints = @UniqueConstraint(name = "uk_note_imports_owner_import",
+                columnNames = {"ownerUsername", "importId"}))
+public class NoteImport {
+    @JsonIgnore
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Chosen by the client and sent again when resuming; only unique per owner
+    @Column(nullable = false, length = 64)
+    private String importId;
+
+    @Column(nullable = false)
+    private String ownerUsername;
+
+    // Archive lines already committed, skipped on resume
+    private long processedLines;
+
+    private long importedNotes;
+
+    private boolean completed;
+
+    // Two requests resuming the same import cannot both commit a batch
+    @JsonIgnore
+    @Version
+    private long version;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdDate;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedDate;
+}
@@ -0,0 +1,11 @@
+package com.secure.notes.models;
+
+// What a note share grants; owners always have WRITE on their own notes
+public enum NotePermission {
+    READ,
+    WRITE;
+
+    public boolean allows(NotePermission required) {
+        return this == WRITE || required == READ;
+    }
+}
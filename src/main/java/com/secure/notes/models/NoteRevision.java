@@ -0,0 +1,48 @@
+package com.secure.notes.models;
+
+import com.secure.notes.security.crypto.SealedText;
+import com.secure.notes.security.crypto.SealedTextConverter;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "note_revisions",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"noteId", "version"}),
+        indexes = @Index(name = "idx_note_revisions_content_key", columnList = "contentKeyId"))
+public class NoteRevision {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long noteId;
+
+    @Column(nullable = false)
+    private int version;
+
+    // Full content when true, otherwise a TextDelta against the previous version
+    private boolean snapshot;
+
+    @Lob
+    @Convert(converter = SealedTextConverter.class)
+    private SealedText content;
+
+    // Data key of the content, null for revisions written before encryption; kept in step by the callback below
+    private Long contentKeyId;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdDate;
+
+    @PrePersist
+    @PreUpdate
+    void recordContentKeyId() {
+        contentKeyId = content != null ? content.keyId() : null;
+    }
+}
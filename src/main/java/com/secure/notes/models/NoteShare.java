@@ -0,0 +1,49 @@
+package com.secure.notes.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+// A note of ownerUsername made readable or writable by granteeUsername; lives with the note
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "note_shares",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"noteId", "granteeUsername"}),
+        indexes = @Index(name = "idx_note_shares_grantee", columnList = "granteeUsername"))
+public class NoteShare {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long noteId;
+
+    // Denormalised from the note so grants can be routed to its shard without reading it
+    @Column(nullable = false)
+    private String ownerUsername;
+
+    @Column(nullable = false)
+    private String granteeUsername;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private NotePermission permission;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdDate;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedDate;
+
+    public NoteShare(Long noteId, String ownerUsername, String granteeUsername) {
+        this.noteId = noteId;
+        this.ownerUsername = ownerUsername;
+        this.granteeUsername = granteeUsername;
+    }
+}
@@ -0,0 +1,34 @@
+package com.secure.notes.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One tag of one note; tags are normalised to lower case before they get here
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "note_tags",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"noteId", "tag"}),
+        indexes = @Index(name = "idx_note_tags_owner_tag", columnList = "ownerUsername, tag, noteId"))
+public class NoteTag {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long noteId;
+
+    // Denormalised from the note so a tag filter is answered from this table's index alone
+    @Column(nullable = false)
+    private String ownerUsername;
+
+    @Column(nullable = false, length = 64)
+    private String tag;
+
+    public NoteTag(Long noteId, String ownerUsername, String tag) {
+        this.noteId = noteId;
+        this.ownerUsername = ownerUsername;
+        this.tag = tag;
+    }
+}
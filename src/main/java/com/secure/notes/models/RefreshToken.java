@@ -0,0 +1,42 @@
+package com.secure.notes.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "refresh_tokens",
+        indexes = {
+                @Index(name = "idx_refresh_tokens_family", columnList = "familyId"),
+                @Index(name = "idx_refresh_tokens_user", columnList = "userId")
+        })
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 of the opaque token, the token itself is never stored
+    @Column(length = 64, nullable = false, unique = true)
+    private String tokenHash;
+
+    // All tokens produced by rotating the same login share a family
+    @Column(length = 36, nullable = false)
+    private String familyId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant usedAt;
+
+    private boolean revoked = false;
+}
@@ -0,0 +1,26 @@
+package com.secure.notes.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "revoked_tokens")
+public class RevokedToken {
+    @Id
+    @Column(length = 64)
+    private String jti;
+
+    // Rows can be purged once the token would have expired anyway
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Instant revokedAt;
+}
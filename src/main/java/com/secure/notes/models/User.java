@@ -22,6 +22,11 @@ import java.time.LocalDateTime;
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = "username"),
                 @UniqueConstraint(columnNames = "email")
+        },
+        indexes = {
+                // Expiry sweeps only scan accounts that are still flagged active
+                @Index(name = "idx_users_account_expiry", columnList = "account_non_expired, account_expiry_date"),
+                @Index(name = "idx_users_credentials_expiry", columnList = "credentials_non_expired, credentials_expiry_date")
         })
 public class User{
     @Id
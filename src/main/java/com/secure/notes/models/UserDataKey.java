@@ -0,0 +1,39 @@
+package com.secure.notes.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "user_data_keys",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"ownerUsername", "version"}))
+public class UserDataKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String ownerUsername;
+
+    @Column(nullable = false)
+    private int version;
+
+    // Base64 AES-GCM wrapped secret, see MasterKeyRing
+    @Column(nullable = false)
+    private String wrappedKey;
+
+    @Column(nullable = false, length = 64)
+    private String masterKid;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdDate;
+
+    // Set when a newer version takes over; content under this key is then re-encrypted
+    private LocalDateTime retiredDate;
+}
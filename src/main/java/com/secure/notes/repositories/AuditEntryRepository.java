@@ -0,0 +1,22 @@
+package com.secure.notes.repositories;
+
+import com.secure.notes.audit.AuditEventType;
+import com.secure.notes.models.AuditEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface AuditEntryRepository extends JpaRepository<AuditEntry, Long> {
+
+    // Every filter is optional
+    @Query("select a from AuditEntry a " +
+            "where (:actor is null or a.actor = :actor) " +
+            "and (:type is null or a.type = :type) " +
+            "and (:from is null or a.eventTime >= :from) " +
+            "and (:to is null or a.eventTime < :to) " +
+            "order by a.eventTime desc")
+    List<AuditEntry> search(String actor, AuditEventType type, Instant from, Instant to, Pageable pageable);
+}
@@ -0,0 +1,71 @@
+package com.secure.notes.repositories;
+
+import com.secure.notes.models.NoteBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NoteBlobRepository extends JpaRepository<NoteBlob, String> {
+
+    // Single statement so concurrent writers of the same body never race on the insert.
+    // Writing a tiered body brings it back into the table: the caller has just sealed it anyway.
+    // MySQL applies the assignments in order, so the key id only changes together with a tiered body
+    @Modifying
+    @Query(value = "insert into note_blobs (hash, content, content_key_id, ref_count, touched_date) "
+            + "values (:hash, :sealedContent, :keyId, :references, :now) "
+            + "on duplicate key update ref_count = ref_count + :references, touched_date = :now, "
+            + "content_key_id = case when content is null then :keyId else content_key_id end, "
+            + "content = coalesce(content, :sealedContent), segment_id = null, segment_offset = null, "
+            + "segment_length = null, segment_key_id = null", nativeQuery = true)
+    int acquire(String hash, String sealedContent, long keyId, int references, LocalDateTime now);
+
+    @Modifying
+    @Query("update NoteBlob b set b.refCount = b.refCount - 1 where b.hash = :hash")
+    int release(String hash);
+
+    @Modifying
+    @Query(value = "delete from note_blobs where ref_count <= 0 limit :limit", nativeQuery = true)
+    int deleteOrphans(int limit);
+
+    // Used by key rotation; covers tiered bodies too, they keep the key id of their segment entry
+    @Query(value = "select hash from note_blobs where content_key_id = :keyId limit :limit", nativeQuery = true)
+    List<String> findHashesByKey(long keyId, int limit);
+
+    // Bodies written before encryption, the only ones without a key id
+    @Query(value = "select hash from note_blobs where content_key_id is null limit :limit", nativeQuery = true)
+    List<String> findUnsealedHashes(int limit);
+
+    // Encrypted bodies still in the table that no note has been written with since the cutoff
+    @Query(value = "select hash from note_blobs where touched_date < :cutoff and content_key_id is not null "
+            + "and segment_id is null and ref_count > 0 limit :limit", nativeQuery = true)
+    List<String> findColdHashes(LocalDateTime cutoff, int limit);
+
+    // Only if the body is still cold: a write since it was selected keeps it in the table
+    @Modifying
+    @Query("update NoteBlob b set b.content = null, b.segmentId = :segmentId, b.segmentOffset = :offset, "
+            + "b.segmentLength = :length, b.segmentKeyId = :keyId, b.contentKeyId = :keyId "
+            + "where b.hash = :hash and b.touchedDate < :cutoff and b.segmentId is null")
+    int moveToSegment(String hash, int segmentId, long offset, int length, long keyId, LocalDateTime cutoff);
+
+    @Modifying
+    @Query("update NoteBlob b set b.segmentId = :segmentId, b.segmentOffset = :offset "
+            + "where b.hash = :hash and b.segmentId = :previousSegmentId")
+    int relocate(String hash, int previousSegmentId, int segmentId, long offset);
+
+    interface SegmentUsage {
+        Integer getSegmentId();
+
+        Long getLiveBytes();
+    }
+
+    @Query("select b.segmentId as segmentId, sum(b.segmentLength) as liveBytes from NoteBlob b "
+            + "where b.segmentId is not null group by b.segmentId")
+    List<SegmentUsage> findSegmentUsage();
+
+    // Relocated rows leave the segment, so callers always ask for the first page
+    List<NoteBlob> findBySegmentId(Integer segmentId, Pageable pageable);
+}
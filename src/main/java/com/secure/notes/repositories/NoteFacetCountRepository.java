@@ -0,0 +1,28 @@
+package com.secure.notes.repositories;
+
+import com.secure.notes.models.NoteFacetCount;
+import com.secure.notes.models.NoteFacetType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface NoteFacetCountRepository extends JpaRepository<NoteFacetCount, Long> {
+    // Served by the (owner_username, type, name) unique key
+    List<NoteFacetCount> findByOwnerUsername(String ownerUsername);
+
+    // Creates the row on first use; concurrent writers add up instead of racing on the insert
+    @Modifying
+    @Query(value = "insert into note_facet_counts (owner_username, type, name, note_count) "
+            + "values (:ownerUsername, :type, :name, :delta) "
+            + "on duplicate key update note_count = note_count + :delta", nativeQuery = true)
+    int adjust(String ownerUsername, String type, String name, long delta);
+
+    // Only the given rows, so rows other writers are still counting up stay untouched
+    @Modifying
+    @Query("delete from NoteFacetCount c where c.ownerUsername = :ownerUsername and c.type = :type "
+            + "and c.name in :names and c.noteCount <= 0")
+    int deleteEmpty(String ownerUsername, NoteFacetType type, Collection<String> names);
+}
@@ -0,0 +1,10 @@
+package com.secure.notes.repositories;
+
+import com.secure.notes.models.NoteImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface NoteImportRepository extends JpaRepository<NoteImport, Long> {
+    Optional<NoteImport> findByOwnerUsernameAndImportId(String ownerUsername, String importId);
+}
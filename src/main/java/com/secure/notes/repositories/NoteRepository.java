@@ -1,9 +1,52 @@
 package com.secure.notes.repositories;
 
 import com.secure.notes.models.Note;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface NoteRepository extends JpaRepository<Note, Long> {
     List<Note> findByOwnerUsername(String ownerUsername);
+
+    // Keyset page; the owner index already orders by id within an owner (InnoDB appends the key)
+    List<Note> findByOwnerUsernameAndIdGreaterThanOrderByIdAsc(String ownerUsername, Long id, Pageable pageable);
+
+    // Keyset page of one folder, idx_note_owner_folder orders by id within a folder the same way
+    List<Note> findByOwnerUsernameAndFolderAndIdGreaterThanOrderByIdAsc(String ownerUsername, String folder, Long id,
+                                                                       Pageable pageable);
+
+    // Driven by idx_note_tags_owner_tag, which yields the tagged note ids in order; notes by primary key
+    @Query("select n from NoteTag t join Note n on n.id = t.noteId "
+            + "where t.ownerUsername = :ownerUsername and t.tag = :tag and t.noteId > :id order by t.noteId")
+    List<Note> findTagged(String ownerUsername, String tag, Long id, Pageable pageable);
+
+    @Query("select n from NoteTag t join Note n on n.id = t.noteId "
+            + "where t.ownerUsername = :ownerUsername and t.tag = :tag and t.noteId > :id and n.folder = :folder "
+            + "order by t.noteId")
+    List<Note> findTaggedInFolder(String ownerUsername, String tag, String folder, Long id, Pageable pageable);
+
+    // Serialises changes to a note across nodes: its folder and tags, which adjust the owner's facet
+    // counts, and its content, whose next revision number is read from the latest one
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select n from Note n where n.id = :id")
+    Optional<Note> findForUpdate(Long id);
+
+    // Locked in id order, so two batches sharing notes wait for each other instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select n from Note n where n.id in :ids order by n.id")
+    List<Note> findAllForUpdate(Collection<Long> ids);
+
+    @Query("select distinct n.ownerUsername from Note n where n.contentHash = :contentHash")
+    List<String> findOwnersByContentHash(String contentHash);
+
+    @Modifying
+    @Query("update Note n set n.contentHash = :newHash where n.contentHash = :oldHash and n.ownerUsername = :ownerUsername")
+    int repointContent(String oldHash, String newHash, String ownerUsername);
 }
\ No newline at end of file
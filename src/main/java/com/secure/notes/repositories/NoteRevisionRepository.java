@@ -0,0 +1,42 @@
+package com.secure.notes.repositories;
+
+import com.secure.notes.models.NoteRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long> {
+    Optional<NoteRevision> findTopByNoteIdOrderByVersionDesc(Long noteId);
+
+    Optional<NoteRevision> findTopByNoteIdAndSnapshotTrueAndVersionLessThanEqualOrderByVersionDesc(Long noteId, int version);
+
+    List<NoteRevision> findByNoteIdAndVersionBetweenOrderByVersionAsc(Long noteId, int fromVersion, int toVersion);
+
+    @Query("select r.version, r.createdDate from NoteRevision r where r.noteId = :noteId order by r.version desc")
+    List<Object[]> findHistory(Long noteId);
+
+    @Query("select distinct r.noteId from NoteRevision r where r.createdDate < :cutoff")
+    List<Long> findNoteIdsWithRevisionsBefore(LocalDateTime cutoff);
+
+    @Query("select max(r.version) from NoteRevision r where r.noteId = :noteId and r.createdDate < :cutoff")
+    Integer findLastVersionBefore(Long noteId, LocalDateTime cutoff);
+
+    @Modifying
+    @Query("delete from NoteRevision r where r.noteId = :noteId and r.version < :version")
+    int deleteOlderThan(Long noteId, int version);
+
+    @Modifying
+    @Query("delete from NoteRevision r where r.noteId = :noteId")
+    int deleteByNoteId(Long noteId);
+
+    @Query(value = "select id from note_revisions where content_key_id = :keyId limit :limit", nativeQuery = true)
+    List<Long> findIdsByContentKeyId(long keyId, int limit);
+
+    // Revisions written before encryption, the only ones without a key id
+    @Query(value = "select id from note_revisions where content_key_id is null limit :limit", nativeQuery = true)
+    List<Long> findUnsealedIds(int limit);
+}
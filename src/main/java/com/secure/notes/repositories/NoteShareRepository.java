@@ -0,0 +1,17 @@
+package com.secure.notes.repositories;
+
+import com.secure.notes.models.NoteShare;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface NoteShareRepository extends JpaRepository<NoteShare, Long> {
+    // Everything shared with one user, served by the grantee index
+    List<NoteShare> findByGranteeUsername(String granteeUsername);
+
+    // Leftmost column of the (note_id, grantee_username) unique key
+    List<NoteShare> findByNoteId(Long noteId);
+
+    Optional<NoteShare> findByNoteIdAndGranteeUsername(Long noteId, String granteeUsername);
+}
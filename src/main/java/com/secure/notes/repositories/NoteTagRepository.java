@@ -0,0 +1,20 @@
+package com.secure.notes.repositories;
+
+import com.secure.notes.models.NoteTag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface NoteTagRepository extends JpaRepository<NoteTag, Long> {
+    // Tags of a whole listing in one query, served by the (note_id, tag) unique key
+    List<NoteTag> findByNoteIdIn(Collection<Long> noteIds);
+
+    List<NoteTag> findByNoteId(Long noteId);
+
+    @Modifying
+    @Query("delete from NoteTag t where t.noteId = :noteId and t.tag in :tags")
+    int deleteTags(Long noteId, Collection<String> tags);
+}
@@ -0,0 +1,31 @@
+package com.secure.notes.repositories;
+
+import com.secure.notes.models.RefreshToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // Locked so two concurrent refreshes with the same token cannot both rotate it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revoked = true where r.familyId = :familyId")
+    int revokeFamily(String familyId);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revoked = true where r.userId in :userIds and r.revoked = false")
+    int revokeAllForUsers(Collection<Long> userIds);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.expiresAt <= :now")
+    int deleteExpired(Instant now);
+}
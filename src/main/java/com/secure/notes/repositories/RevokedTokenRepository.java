@@ -0,0 +1,19 @@
+package com.secure.notes.repositories;
+
+import com.secure.notes.models.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    List<RevokedToken> findByExpiresAtAfter(Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(Instant now);
+}
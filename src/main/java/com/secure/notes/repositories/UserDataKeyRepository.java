@@ -0,0 +1,21 @@
+package com.secure.notes.repositories;
+
+import com.secure.notes.models.UserDataKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserDataKeyRepository extends JpaRepository<UserDataKey, Long> {
+    Optional<UserDataKey> findTopByOwnerUsernameOrderByVersionDesc(String ownerUsername);
+
+    List<UserDataKey> findByMasterKidNot(String masterKid, Pageable pageable);
+
+    @Query("select k from UserDataKey k where k.retiredDate is null and k.createdDate < :cutoff")
+    List<UserDataKey> findActiveCreatedBefore(LocalDateTime cutoff, Pageable pageable);
+
+    List<UserDataKey> findByRetiredDateBefore(LocalDateTime cutoff);
+}
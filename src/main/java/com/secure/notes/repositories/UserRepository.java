@@ -1,16 +1,51 @@
 package com.secure.notes.repositories;
 
 import com.secure.notes.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUserName(String username);
 
+    @Query("select u.password from User u where u.userName = :username")
+    Optional<String> findPasswordByUserName(String username);
+
     Boolean existsByUserName(String username);
     Boolean existsByEmail(String email);
-}
 
+    interface AccountRef {
+        Long getUserId();
+
+        String getUserName();
+    }
+
+    // Accounts past their expiry date that are still flagged active; null dates never expire
+    @Query("select u.userId as userId, u.userName as userName from User u " +
+            "where u.accountNonExpired = true and u.accountExpiryDate < :today order by u.userId")
+    List<AccountRef> findAccountsToExpire(LocalDate today, Pageable pageable);
+
+    @Query("select u.userId as userId, u.userName as userName from User u " +
+            "where u.credentialsNonExpired = true and u.credentialsExpiryDate < :today order by u.userId")
+    List<AccountRef> findCredentialsToExpire(LocalDate today, Pageable pageable);
+
+    // The date condition is repeated so a concurrent extension is not overwritten
+    @Modifying
+    @Query("update User u set u.accountNonExpired = false, u.updatedDate = :now " +
+            "where u.userId in :userIds and u.accountExpiryDate < :today")
+    int expireAccounts(Collection<Long> userIds, LocalDate today, LocalDateTime now);
+
+    @Modifying
+    @Query("update User u set u.credentialsNonExpired = false, u.updatedDate = :now " +
+            "where u.userId in :userIds and u.credentialsExpiryDate < :today")
+    int expireCredentials(Collection<Long> userIds, LocalDate today, LocalDateTime now);
+}
@@ -1,3 +1,37 @@
+package com.secure.notes.security;
+
+import com.secure.notes.models.AppRole;
+import com.secure.notes.models.Role;
+import com.secure.notes.models.User;
+import com.secure.notes.repositories.RoleRepository;
+import com.secure.notes.repositories.UserRepository;
+import com.secure.notes.security.jwt.AuthEntryPointJwt;
+import com.secure.notes.security.jwt.AuthTokenFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+
+import java.time.LocalDate;
+
+import static org.springframework.security.config.Customizer.withDefaults;
+
 // Specifies that this class is a configuration class for Spring
 @Configuration
 // Enables Spring Security in the application
@@ -10,21 +44,39 @@ public class SecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
-    // Bean to provide a custom JWT authentication filter
+    // Form login and HTTP Basic run BCrypt and a user lookup on every request that uses them,
+    // so they are off unless explicitly enabled, and never apply to /api/**
+    @Value("${spring.app.security.interactive-login:false}")
+    private boolean interactiveLogin;
+
+    // AuthTokenFilter is a @Component, which Spring Boot would also register as a servlet filter
+    // running on every request; it must only run inside the security filter chains
     @Bean
-    public AuthTokenFilter authenticationJwtTokenFilter() {
-        return new AuthTokenFilter();
+    public FilterRegistrationBean<AuthTokenFilter> authTokenFilterRegistration(AuthTokenFilter authTokenFilter) {
+        FilterRegistrationBean<AuthTokenFilter> registration = new FilterRegistrationBean<>(authTokenFilter);
+        registration.setEnabled(false);
+        return registration;
     }
 
-    // Configures the security filter chain
+    // Configures the stateless, JWT-only security filter chain for the REST API
     @Bean
-    SecurityFilterChain defaultSecurityFilterChain(HttpSecurity http) throws Exception {
+    @Order(1)
+    SecurityFilterChain apiSecurityFilterChain(HttpSecurity http, AuthTokenFilter authTokenFilter) throws Exception {
+        // Applies this chain to API requests only
+        http.securityMatcher("/api/**");
+
         // Configures CSRF protection using cookies, but excludes specific endpoints
         http.csrf(csrf ->
                 csrf.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
                         .ignoringRequestMatchers("/api/auth/public/**")
         );
 
+        // Never creates or reads an HTTP session, every request is authenticated by its JWT
+        http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        // Does not save requests for a login redirect, which would need a session
+        http.requestCache(cache -> cache.disable());
+
         // Configures URL-based authorization
         http.authorizeHttpRequests((requests) ->
                 requests
@@ -44,13 +96,46 @@ public class SecurityConfig {
         );
 
         // Adds the custom JWT authentication filter before the username/password authentication filter
-        http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(authTokenFilter, UsernamePasswordAuthenticationFilter.class);
+
+        // Disables form login and HTTP Basic for the API
+        http.formLogin(AbstractHttpConfigurer::disable);
+        http.httpBasic(AbstractHttpConfigurer::disable);
+
+        // Builds and returns the security filter chain
+        return http.build();
+    }
+
+    // Configures the security filter chain for everything outside the REST API
+    @Bean
+    @Order(2)
+    SecurityFilterChain defaultSecurityFilterChain(HttpSecurity http, AuthTokenFilter authTokenFilter) throws Exception {
+        // Configures CSRF protection using cookies
+        http.csrf(csrf -> csrf.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse()));
+
+        // Requires authentication for all other endpoints
+        http.authorizeHttpRequests((requests) -> requests.anyRequest().authenticated());
+
+        // Adds the custom JWT authentication filter before the username/password authentication filter
+        http.addFilterBefore(authTokenFilter, UsernamePasswordAuthenticationFilter.class);
+
+        if (interactiveLogin) {
+            // Enables default form-based login, which keeps the login in an HTTP session
+            http.formLogin(withDefaults());
 
-        // Enables default form-based login
-        http.formLogin(withDefaults());
+            // Enables HTTP Basic authentication
+            http.httpBasic(withDefaults());
+        } else {
+            // Without interactive login nothing needs a session
+            http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
-        // Enables HTTP Basic authentication
-        http.httpBasic(withDefaults());
+            // Sets a custom authentication entry point for handling unauthorized access
+            http.exceptionHandling(exception ->
+                    exception.authenticationEntryPoint(unauthorizedHandler)
+            );
+            http.formLogin(AbstractHttpConfigurer::disable);
+            http.httpBasic(AbstractHttpConfigurer::disable);
+        }
 
         // Builds and returns the security filter chain
         return http.build();
@@ -68,8 +153,10 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
-    // Initializes some default roles and users in the application
+    // Initializes some default roles and users in the application; only hashes passwords when the
+    // users are missing, and is switched off in production so new instances skip it entirely
     @Bean
+    @ConditionalOnProperty(name = "spring.app.seed-data.enabled", havingValue = "true", matchIfMissing = true)
     public CommandLineRunner initData(RoleRepository roleRepository, UserRepository userRepository, PasswordEncoder passwordEncoder) {
         return args -> {
             // Ensures the ROLE_USER exists in the database, creates it if not found
@@ -0,0 +1,15 @@
+package com.secure.notes.security.crypto;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CryptoProperties.class)
+public class CryptoConfig {
+
+    @Bean
+    public MasterKeyRing masterKeyRing(CryptoProperties properties) {
+        return new MasterKeyRing(properties);
+    }
+}
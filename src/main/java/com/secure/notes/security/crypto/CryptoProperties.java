@@ -0,0 +1,50 @@
+package com.secure.notes.security.crypto;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Envelope encryption of note content. Master keys only wrap the per-user data keys. To rotate
+ * a master key, add the new one, move {@code active-master-kid} to it and keep the old one until
+ * the rotation job has re-wrapped every data key.
+ */
+@Data
+@ConfigurationProperties(prefix = "spring.app.crypto")
+public class CryptoProperties {
+
+    private String activeMasterKid;
+
+    private List<MasterKey> masterKeys = new ArrayList<>();
+
+    private Keystore keystore = new Keystore();
+
+    // Unwrapped data keys kept in memory
+    private int keyCacheSize = 10_000;
+
+    // How long a node may keep encrypting with a data key after it was rotated elsewhere
+    private Duration activeKeyTtl = Duration.ofMinutes(5);
+
+    // Data keys older than this are rotated and their content re-encrypted, zero disables it
+    private Duration dataKeyMaxAge = Duration.ofDays(365);
+
+    private int rotationBatchSize = 200;
+
+    @Data
+    public static class MasterKey {
+        private String kid;
+        // Base64 of 32 random bytes
+        private String key;
+    }
+
+    @Data
+    public static class Keystore {
+        // PKCS12 keystore whose secret key entries are master keys, the alias is the kid
+        private String path;
+        private String password;
+        private String type = "PKCS12";
+    }
+}
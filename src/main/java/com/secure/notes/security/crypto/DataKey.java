@@ -0,0 +1,10 @@
+package com.secure.notes.security.crypto;
+
+import javax.crypto.SecretKey;
+
+/**
+ * An unwrapped per-user data key. The encryption and deduplication keys are derived from the
+ * same secret so only one value has to be wrapped and stored.
+ */
+public record DataKey(Long id, String ownerUsername, SecretKey encryptionKey, SecretKey dedupKey) {
+}
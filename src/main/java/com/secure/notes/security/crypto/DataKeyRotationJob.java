@@ -0,0 +1,154 @@
+package com.secure.notes.security.crypto;
+
+import com.secure.notes.models.Note;
+import com.secure.notes.models.UserDataKey;
+import com.secure.notes.repositories.NoteBlobRepository;
+import com.secure.notes.repositories.NoteRepository;
+import com.secure.notes.repositories.NoteRevisionRepository;
+import com.secure.notes.repositories.UserDataKeyRepository;
+import com.secure.notes.services.impl.NoteContentStore;
+import com.secure.notes.sharding.MaintenanceLock;
+import com.secure.notes.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Background key maintenance, in batches so no transaction holds many rows:
+ * re-wraps data keys under the active master key, rotates data keys past their maximum age,
+ * re-encrypts content still under retired keys (or still in plaintext), and finally deletes
+ * retired keys nothing refers to any more.
+ */
+@Component
+public class DataKeyRotationJob {
+    private static final Logger logger = LoggerFactory.getLogger(DataKeyRotationJob.class);
+
+    @Autowired
+    private UserDataKeyRepository userDataKeyRepository;
+
+    @Autowired
+    private NoteBlobRepository noteBlobRepository;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteContentStore noteContentStore;
+
+    @Autowired
+    private DataKeyService dataKeyService;
+
+    @Autowired
+    private MasterKeyRing masterKeyRing;
+
+    @Autowired
+    private CryptoProperties properties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MaintenanceLock maintenanceLock;
+
+    @Scheduled(cron = "${spring.app.crypto.rotation-cron:0 0 4 * * *}")
+    public void run() {
+        // Data keys live with their owner's notes; a rebalance copying an owner between re-sealing
+        // the notes and adding the new key would leave notes the target cannot decrypt
+        maintenanceLock.runExclusively("key rotation", () -> shardRouter.forEachShard(this::runOnShard));
+    }
+
+    private void runOnShard() {
+        rewrapDataKeys();
+        rotateExpiredDataKeys();
+        // Content written before encryption was introduced
+        reencrypt(noteBlobRepository::findUnsealedHashes, noteRevisionRepository::findUnsealedIds);
+        // Nodes may keep using a rotated key for up to active-key-ttl, wait that out first
+        LocalDateTime settled = LocalDateTime.now().minus(properties.getActiveKeyTtl());
+        for (UserDataKey retired : userDataKeyRepository.findByRetiredDateBefore(settled)) {
+            // Tiered bodies under the key are found too and come back into the table
+            boolean complete = reencrypt(limit -> noteBlobRepository.findHashesByKey(retired.getId(), limit),
+                    limit -> noteRevisionRepository.findIdsByContentKeyId(retired.getId(), limit));
+            if (complete) {
+                userDataKeyRepository.delete(retired);
+                dataKeyService.forget(retired.getId());
+                logger.info("Data key {} of {} re-encrypted and deleted", retired.getId(), retired.getOwnerUsername());
+            }
+        }
+    }
+
+    private void rewrapDataKeys() {
+        List<UserDataKey> batch;
+        do {
+            batch = transactionTemplate.execute(status -> {
+                List<UserDataKey> keys = userDataKeyRepository.findByMasterKidNot(masterKeyRing.activeKid(),
+                        PageRequest.ofSize(properties.getRotationBatchSize()));
+                keys.forEach(dataKeyService::rewrap);
+                return keys;
+            });
+        } while (batch != null && batch.size() == properties.getRotationBatchSize());
+    }
+
+    private void rotateExpiredDataKeys() {
+        if (properties.getDataKeyMaxAge().isZero()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getDataKeyMaxAge());
+        List<UserDataKey> expired;
+        do {
+            expired = userDataKeyRepository.findActiveCreatedBefore(cutoff,
+                    PageRequest.ofSize(properties.getRotationBatchSize()));
+            expired.forEach(key -> dataKeyService.rotate(key.getOwnerUsername()));
+        } while (expired.size() == properties.getRotationBatchSize());
+    }
+
+    // Returns whether nothing matching is left
+    private boolean reencrypt(IntFunction<List<String>> blobHashes, IntFunction<List<Long>> revisionIds) {
+        int batchSize = properties.getRotationBatchSize();
+        try {
+            List<String> hashes;
+            do {
+                hashes = blobHashes.apply(batchSize);
+                for (String hash : hashes) {
+                    transactionTemplate.executeWithoutResult(status -> noteContentStore.reseal(hash));
+                }
+            } while (hashes.size() == batchSize);
+
+            List<Long> ids;
+            do {
+                ids = revisionIds.apply(batchSize);
+                List<Long> batch = ids;
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(this::resealRevision));
+            } while (ids.size() == batchSize);
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Re-encrypting note content failed, retrying on the next run: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void resealRevision(Long id) {
+        noteRevisionRepository.findById(id).ifPresent(revision -> {
+            String owner = noteRepository.findById(revision.getNoteId()).map(Note::getOwnerUsername).orElse(null);
+            if (owner == null) {
+                noteRevisionRepository.delete(revision);
+                return;
+            }
+            revision.setContent(new SealedText(dataKeyService.activeKey(owner).id(), revision.getContent().text()));
+            noteRevisionRepository.save(revision);
+        });
+    }
+}
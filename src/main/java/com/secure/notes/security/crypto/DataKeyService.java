@@ -0,0 +1,147 @@
+package com.secure.notes.security.crypto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.secure.notes.models.UserDataKey;
+import com.secure.notes.repositories.UserDataKeyRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Hands out unwrapped data keys. Unwrapping costs a master-key decryption and a database read,
+ * so keys are cached by id (for reads) and by owner (for writes); decrypting a page of notes
+ * then only runs AES-GCM per note.
+ */
+@Service
+public class DataKeyService {
+
+    @Autowired
+    private UserDataKeyRepository userDataKeyRepository;
+
+    @Autowired
+    private MasterKeyRing masterKeyRing;
+
+    @Autowired
+    private CryptoProperties properties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SecureRandom random = new SecureRandom();
+    private TransactionTemplate newTransaction;
+    private Cache<Long, DataKey> keysById;
+    private Cache<String, DataKey> activeKeys;
+
+    @PostConstruct
+    void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        // Keys must be visible to other transactions even if the caller's rolls back
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        keysById = Caffeine.newBuilder()
+                .maximumSize(properties.getKeyCacheSize())
+                .build();
+        activeKeys = Caffeine.newBuilder()
+                .maximumSize(properties.getKeyCacheSize())
+                .expireAfterWrite(properties.getActiveKeyTtl())
+                .build();
+    }
+
+    public DataKey key(long id) {
+        return keysById.get(id, keyId -> unwrap(userDataKeyRepository.findById(keyId)
+                .orElseThrow(() -> new RuntimeException("Unknown data key " + keyId))));
+    }
+
+    // Key new content of this user is encrypted under, created on first use
+    public DataKey activeKey(String username) {
+        return activeKeys.get(username, this::loadOrCreate);
+    }
+
+    /**
+     * Starts a new key version for the user. The previous key keeps decrypting until the
+     * rotation job has re-encrypted everything under it.
+     */
+    public DataKey rotate(String username) {
+        DataKey key = newTransaction.execute(status -> {
+            UserDataKey current = userDataKeyRepository.findTopByOwnerUsernameOrderByVersionDesc(username)
+                    .orElse(null);
+            if (current != null) {
+                current.setRetiredDate(LocalDateTime.now());
+                userDataKeyRepository.save(current);
+            }
+            return create(username, current != null ? current.getVersion() + 1 : 1);
+        });
+        activeKeys.put(username, key);
+        return key;
+    }
+
+    // Re-wraps under the active master key, the data key itself is unchanged
+    public void rewrap(UserDataKey stored) {
+        byte[] secret = masterKeyRing.unwrap(stored.getMasterKid(), stored.getWrappedKey(),
+                stored.getOwnerUsername(), stored.getVersion());
+        try {
+            stored.setWrappedKey(masterKeyRing.wrap(secret, stored.getOwnerUsername(), stored.getVersion()));
+            stored.setMasterKid(masterKeyRing.activeKid());
+            userDataKeyRepository.save(stored);
+        } finally {
+            Arrays.fill(secret, (byte) 0);
+        }
+    }
+
+    public void forget(long id) {
+        keysById.invalidate(id);
+    }
+
+    private DataKey loadOrCreate(String username) {
+        return userDataKeyRepository.findTopByOwnerUsernameOrderByVersionDesc(username)
+                .map(stored -> remember(unwrap(stored)))
+                .orElseGet(() -> {
+                    try {
+                        return newTransaction.execute(status -> create(username, 1));
+                    } catch (DataIntegrityViolationException e) {
+                        // Another node created it first
+                        return remember(unwrap(userDataKeyRepository.findTopByOwnerUsernameOrderByVersionDesc(username)
+                                .orElseThrow(() -> e)));
+                    }
+                });
+    }
+
+    private DataKey create(String username, int version) {
+        byte[] secret = new byte[32];
+        random.nextBytes(secret);
+        try {
+            UserDataKey stored = new UserDataKey();
+            stored.setOwnerUsername(username);
+            stored.setVersion(version);
+            stored.setMasterKid(masterKeyRing.activeKid());
+            stored.setWrappedKey(masterKeyRing.wrap(secret, username, version));
+            stored = userDataKeyRepository.save(stored);
+            return remember(NoteCipher.deriveKey(stored.getId(), username, secret));
+        } finally {
+            Arrays.fill(secret, (byte) 0);
+        }
+    }
+
+    private DataKey remember(DataKey key) {
+        keysById.put(key.id(), key);
+        return key;
+    }
+
+    private DataKey unwrap(UserDataKey stored) {
+        byte[] secret = masterKeyRing.unwrap(stored.getMasterKid(), stored.getWrappedKey(),
+                stored.getOwnerUsername(), stored.getVersion());
+        try {
+            return NoteCipher.deriveKey(stored.getId(), stored.getOwnerUsername(), secret);
+        } finally {
+            Arrays.fill(secret, (byte) 0);
+        }
+    }
+}
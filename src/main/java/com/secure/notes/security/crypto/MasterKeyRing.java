@@ -0,0 +1,111 @@
+package com.secure.notes.security.crypto;
+
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wraps and unwraps data keys with AES-GCM. The owner and key version are authenticated
+ * with the wrapped key, so a wrapped key copied to another row does not unwrap.
+ */
+public class MasterKeyRing {
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final String activeKid;
+    private final Map<String, SecretKey> keys;
+    private final SecureRandom random = new SecureRandom();
+
+    public MasterKeyRing(CryptoProperties properties) {
+        Map<String, SecretKey> loaded = new HashMap<>();
+        for (CryptoProperties.MasterKey key : properties.getMasterKeys()) {
+            if (StringUtils.hasText(key.getKey())) {
+                loaded.put(key.getKid(), new SecretKeySpec(Base64.getDecoder().decode(key.getKey()), "AES"));
+            }
+        }
+        if (StringUtils.hasText(properties.getKeystore().getPath())) {
+            loaded.putAll(loadKeystore(properties.getKeystore()));
+        }
+        // No ephemeral fallback: content encrypted under a key that is gone is lost for good
+        if (!loaded.containsKey(properties.getActiveMasterKid())) {
+            throw new IllegalStateException("No master key configured for spring.app.crypto.active-master-kid="
+                    + properties.getActiveMasterKid());
+        }
+        this.activeKid = properties.getActiveMasterKid();
+        this.keys = Collections.unmodifiableMap(loaded);
+    }
+
+    public String activeKid() {
+        return activeKid;
+    }
+
+    public String wrap(byte[] dataKey, String owner, int version) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keys.get(activeKid), new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(associatedData(owner, version));
+            byte[] sealed = cipher.doFinal(dataKey);
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + sealed.length)
+                    .put(iv).put(sealed).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot wrap data key", e);
+        }
+    }
+
+    public byte[] unwrap(String kid, String wrapped, String owner, int version) {
+        SecretKey key = keys.get(kid);
+        if (key == null) {
+            throw new IllegalStateException("Master key " + kid + " is not configured");
+        }
+        byte[] bytes = Base64.getDecoder().decode(wrapped);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+            cipher.updateAAD(associatedData(owner, version));
+            return cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot unwrap data key of " + owner, e);
+        }
+    }
+
+    private static byte[] associatedData(String owner, int version) {
+        return (owner + ":" + version).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, SecretKey> loadKeystore(CryptoProperties.Keystore properties) {
+        char[] password = properties.getPassword() != null ? properties.getPassword().toCharArray() : null;
+        Map<String, SecretKey> loaded = new HashMap<>();
+        try (InputStream in = Files.newInputStream(Path.of(properties.getPath()))) {
+            KeyStore keyStore = KeyStore.getInstance(properties.getType());
+            keyStore.load(in, password);
+            for (String alias : Collections.list(keyStore.aliases())) {
+                if (keyStore.entryInstanceOf(alias, KeyStore.SecretKeyEntry.class)) {
+                    KeyStore.SecretKeyEntry entry = (KeyStore.SecretKeyEntry) keyStore.getEntry(alias,
+                            new KeyStore.PasswordProtection(password));
+                    loaded.put(alias, new SecretKeySpec(entry.getSecretKey().getEncoded(), "AES"));
+                }
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load master keys from " + properties.getPath(), e);
+        }
+        return loaded;
+    }
+}
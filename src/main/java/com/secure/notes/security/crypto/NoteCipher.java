@@ -0,0 +1,122 @@
+package com.secure.notes.security.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * AES-256-GCM for note content. Ciphertext is stored as {@code $enc1$<keyId>$<base64(iv|ct|tag)>}
+ * so the key can be found without extra columns; the prefix is authenticated with the content.
+ */
+public final class NoteCipher {
+    public static final String PREFIX = "$enc1$";
+
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private NoteCipher() {
+    }
+
+    public static DataKey deriveKey(Long id, String ownerUsername, byte[] secret) {
+        return new DataKey(id, ownerUsername,
+                new SecretKeySpec(hmac(secret, "note-encryption"), "AES"),
+                new SecretKeySpec(hmac(secret, "note-dedup"), "HmacSHA256"));
+    }
+
+    public static boolean isSealed(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+
+    public static long keyId(String sealed) {
+        int end = sealed.indexOf('$', PREFIX.length());
+        if (!isSealed(sealed) || end < 0) {
+            throw new IllegalArgumentException("Not sealed note content");
+        }
+        return Long.parseLong(sealed, PREFIX.length(), end, 10);
+    }
+
+    public static String seal(DataKey key, String plaintext) {
+        String header = PREFIX + key.id() + "$";
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key.encryptionKey(), new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(header.getBytes(StandardCharsets.US_ASCII));
+            byte[] sealed = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+            return header + Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + sealed.length)
+                    .put(iv).put(sealed).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt note content", e);
+        }
+    }
+
+    public static String open(DataKey key, String sealed) {
+        int split = sealed.indexOf('$', PREFIX.length()) + 1;
+        byte[] bytes = Base64.getDecoder().decode(sealed.substring(split));
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key.encryptionKey(), new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+            cipher.updateAAD(sealed.substring(0, split).getBytes(StandardCharsets.US_ASCII));
+            return new String(cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decrypt note content with key " + key.id(), e);
+        }
+    }
+
+    // Binary form for segment files: iv|ct|tag, with caller-supplied associated data
+    public static byte[] sealBytes(DataKey key, byte[] plaintext, byte[] aad) {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key.encryptionKey(), new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(aad);
+            byte[] sealed = cipher.doFinal(plaintext);
+            return ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt note content", e);
+        }
+    }
+
+    public static byte[] openBytes(DataKey key, byte[] sealed, byte[] aad) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key.encryptionKey(), new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LENGTH));
+            cipher.updateAAD(aad);
+            return cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decrypt note content with key " + key.id(), e);
+        }
+    }
+
+    // Keyed so equal bodies of different users, or guessed bodies, cannot be matched by hash
+    public static String dedupHash(DataKey key, String plaintext) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key.dedupKey());
+            return HexFormat.of().formatHex(mac.doFinal(plaintext.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot hash note content", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] secret, String label) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return mac.doFinal(label.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive data key", e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.secure.notes.security.crypto;
+
+/**
+ * Plaintext together with the data key it is (or will be) encrypted under. A null key id
+ * marks content written before encryption was introduced.
+ */
+public record SealedText(Long keyId, String text) {
+
+    public boolean isLegacy() {
+        return keyId == null;
+    }
+}
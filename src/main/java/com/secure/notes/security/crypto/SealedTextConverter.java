@@ -0,0 +1,45 @@
+package com.secure.notes.security.crypto;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Immutable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Encrypts on write and decrypts on read. Instantiated by Hibernate through Spring's bean
+ * container, so the data key cache is shared with the rest of the application.
+ */
+// Immutable: Hibernate can snapshot loaded values by reference instead of re-running the converter
+@Immutable
+@Converter
+public class SealedTextConverter implements AttributeConverter<SealedText, String> {
+
+    // Lazy: the service needs repositories, which need the EntityManagerFactory building this converter
+    @Lazy
+    @Autowired
+    private DataKeyService dataKeyService;
+
+    @Override
+    public String convertToDatabaseColumn(SealedText value) {
+        if (value == null || value.text() == null) {
+            return null;
+        }
+        if (value.isLegacy()) {
+            throw new IllegalStateException("Refusing to store note content without a data key");
+        }
+        return NoteCipher.seal(dataKeyService.key(value.keyId()), value.text());
+    }
+
+    @Override
+    public SealedText convertToEntityAttribute(String stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (!NoteCipher.isSealed(stored)) {
+            return new SealedText(null, stored);
+        }
+        long keyId = NoteCipher.keyId(stored);
+        return new SealedText(keyId, NoteCipher.open(dataKeyService.key(keyId), stored));
+    }
+}
@@ -1,6 +1,7 @@
 package com.secure.notes.security.jwt;
 
-import com.secure.notes.security.services.UserDetailsServiceImpl;
+import com.secure.notes.security.revocation.TokenRevocationService;
+import com.secure.notes.security.services.UserDetailsImpl;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -23,7 +25,7 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private TokenRevocationService tokenRevocationService;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
@@ -33,10 +35,11 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         logger.debug("AuthTokenFilter called for URI: {}", request.getRequestURI());
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            VerifiedToken token = jwt != null ? jwtUtils.verifyJwtToken(jwt) : null;
+            if (token != null && !tokenRevocationService.isRevoked(token.jti())) {
+                // Stateless: the principal is built from the verified claims, not loaded from the database
+                UserDetails userDetails = new UserDetailsImpl(token.userId(), token.username(), null, null, false,
+                        token.roles().stream().map(SimpleGrantedAuthority::new).toList());
 
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails,
@@ -0,0 +1,7 @@
+package com.secure.notes.security.jwt;
+
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.secure.notes.security.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(JwtKeyProperties.class)
+public class JwtKeyConfig {
+
+    @Bean
+    public JwtKeyRing jwtKeyRing(JwtKeyProperties properties,
+                                 @Value("${spring.app.jwtSecret:}") String legacySecret) {
+        return new JwtKeyRing(properties, legacySecret);
+    }
+}
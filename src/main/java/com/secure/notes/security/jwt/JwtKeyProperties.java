@@ -0,0 +1,29 @@
+package com.secure.notes.security.jwt;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ES256 key ring. To rotate, add the new key next to the current one, move
+ * {@code active-kid} to it, and drop the old entry once tokens signed with it have expired.
+ */
+@Data
+@ConfigurationProperties(prefix = "spring.app.jwt")
+public class JwtKeyProperties {
+
+    private String activeKid;
+
+    private List<SigningKey> keys = new ArrayList<>();
+
+    @Data
+    public static class SigningKey {
+        private String kid;
+        // Base64 PKCS#8 DER, may be left out for keys that are only kept for verification
+        private String privateKey;
+        // Base64 X.509 SubjectPublicKeyInfo DER
+        private String publicKey;
+    }
+}
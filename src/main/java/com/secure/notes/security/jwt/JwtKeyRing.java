@@ -0,0 +1,149 @@
+package com.secure.notes.security.jwt;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resolves the verification key of a token from its {@code kid} header. The map is built
+ * once and never mutated, so lookups on the request path take no lock. Tokens without a
+ * {@code kid} were signed by the old HS256 secret and are accepted only while
+ * {@code spring.app.jwtSecret} is still configured.
+ */
+public class JwtKeyRing extends LocatorAdapter<Key> {
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private final String activeKid;
+    private final PrivateKey signingKey;
+    private final Map<String, PublicKey> verificationKeys;
+    private final SecretKey legacyKey;
+
+    public JwtKeyRing(JwtKeyProperties properties, String legacySecret) {
+        Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+        Map<String, PrivateKey> privateKeys = new HashMap<>();
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            for (JwtKeyProperties.SigningKey key : properties.getKeys()) {
+                publicKeys.put(key.getKid(), keyFactory.generatePublic(
+                        new X509EncodedKeySpec(Base64.getDecoder().decode(key.getPublicKey()))));
+                if (StringUtils.hasText(key.getPrivateKey())) {
+                    privateKeys.put(key.getKid(), keyFactory.generatePrivate(
+                            new PKCS8EncodedKeySpec(Base64.getDecoder().decode(key.getPrivateKey()))));
+                }
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid key in spring.app.jwt.keys", e);
+        }
+
+        if (publicKeys.isEmpty()) {
+            // Development fallback: tokens do not survive a restart and are not accepted by other nodes
+            String kid = "ephemeral-" + UUID.randomUUID();
+            KeyPair keyPair = generateKeyPair();
+            publicKeys.put(kid, keyPair.getPublic());
+            privateKeys.put(kid, keyPair.getPrivate());
+            this.activeKid = kid;
+            logger.warn("No spring.app.jwt.keys configured, signing tokens with ephemeral key {}", kid);
+        } else {
+            this.activeKid = properties.getActiveKid();
+        }
+
+        this.signingKey = privateKeys.get(activeKid);
+        if (signingKey == null) {
+            throw new IllegalStateException("No private key configured for active kid " + activeKid);
+        }
+        this.verificationKeys = Map.copyOf(publicKeys);
+        this.legacyKey = StringUtils.hasText(legacySecret)
+                ? Keys.hmacShaKeyFor(Decoders.BASE64.decode(legacySecret))
+                : null;
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    public PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            if (legacyKey == null) {
+                throw new UnsupportedJwtException("Token has no kid and legacy HS256 tokens are not accepted");
+            }
+            return legacyKey;
+        }
+        PublicKey key = verificationKeys.get(kid);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown signing key " + kid);
+        }
+        return key;
+    }
+
+    /**
+     * Public keys as a JSON Web Key Set (RFC 7517), for services that verify our tokens.
+     */
+    public Map<String, Object> jwks() {
+        List<Map<String, Object>> keys = verificationKeys.entrySet().stream()
+                .map(entry -> toJwk(entry.getKey(), (ECPublicKey) entry.getValue()))
+                .toList();
+        return Map.of("keys", keys);
+    }
+
+    private static Map<String, Object> toJwk(String kid, ECPublicKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("kid", kid);
+        jwk.put("x", coordinate(key.getW().getAffineX()));
+        jwk.put("y", coordinate(key.getW().getAffineY()));
+        return jwk;
+    }
+
+    // P-256 coordinates are exactly 32 bytes, BigInteger may add a sign byte or drop leading zeros
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate an EC key pair", e);
+        }
+    }
+}
@@ -1,29 +1,44 @@
 package com.secure.notes.security.jwt;
 
+import com.secure.notes.cache.TieredCache;
+import com.secure.notes.security.services.UserDetailsImpl;
+import com.secure.notes.util.Hashes;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.security.Key;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-    @Value("${spring.app.jwtSecret}")
-    private String jwtSecret;
-
     @Value("${spring.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    @Autowired
+    private TieredCache<VerifiedToken> verifiedTokenCache;
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    // Parsers are immutable and thread-safe, so one is shared by all requests
+    private JwtParser parser;
+
+    @PostConstruct
+    void initParser() {
+        parser = Jwts.parser().keyLocator(keyRing).build();
+    }
+
     public String getJwtFromHeader(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         logger.debug("Authorization Header: {}", bearerToken);
@@ -33,33 +48,57 @@ public class JwtUtils {
         return null;
     }
 
+    /**
+     * Issues a short-lived access token. User id and roles are embedded so that
+     * {@link AuthTokenFilter} can authenticate the request from the token alone.
+     */
     public String generateTokenFromUsername(UserDetails userDetails) {
         String username = userDetails.getUsername();
-        return Jwts.builder()
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        JwtBuilder builder = Jwts.builder()
+                .header().keyId(keyRing.getActiveKid()).and()
                 .subject(username)
+                .id(UUID.randomUUID().toString())
+                .claim("roles", roles);
+        if (userDetails instanceof UserDetailsImpl user) {
+            builder.claim("uid", user.getId());
+        }
+        return builder
                 .issuedAt(new Date())
                 .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key())
+                .signWith(keyRing.getSigningKey(), Jwts.SIG.ES256)
                 .compact();
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                        .verifyWith((SecretKey) key())
-                .build().parseSignedClaims(token)
-                .getPayload().getSubject();
+        VerifiedToken cached = verifiedTokenCache.get(cacheKey(token));
+        if (cached != null && !cached.isExpired()) {
+            return cached.username();
+        }
+        return parse(token).username();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    public boolean validateJwtToken(String authToken) {
+        return verifyJwtToken(authToken) != null;
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Verifies the token and returns its claims, or {@code null} if it is not valid.
+     * Tokens already verified on any node are answered from the token cache.
+     */
+    public VerifiedToken verifyJwtToken(String authToken) {
+        String cacheKey = cacheKey(authToken);
+        VerifiedToken cached = verifiedTokenCache.get(cacheKey);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached;
+            }
+            verifiedTokenCache.evict(cacheKey);
+        }
         try {
-            System.out.println("Validate");
-            Jwts.parser().verifyWith((SecretKey) key())
-                    .build().parseSignedClaims(authToken);
-            return true;
+            return parse(authToken);
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -68,7 +107,28 @@ public class JwtUtils {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("JWT signature is invalid: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    private VerifiedToken parse(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Number userId = claims.get("uid", Number.class);
+        List<?> roles = claims.get("roles", List.class);
+        VerifiedToken verified = new VerifiedToken(
+                userId != null ? userId.longValue() : null,
+                claims.getSubject(),
+                roles != null ? roles.stream().map(String::valueOf).toList() : List.of(),
+                claims.getId(),
+                claims.getExpiration().getTime());
+        verifiedTokenCache.put(cacheKey(token), verified);
+        return verified;
+    }
+
+    // Tokens are bearer credentials, so only their digest is used as the cache key
+    private static String cacheKey(String token) {
+        return Hashes.sha256Hex(token);
     }
 }
@@ -0,0 +1,21 @@
+package com.secure.notes.security.jwt;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Claims of a JWT whose signature has already been checked, cached so repeat requests
+ * with the same token skip parsing and signature verification. Carries everything needed
+ * to build the request's principal, so authenticating a request never reads the database.
+ */
+public record VerifiedToken(Long userId, String username, List<String> roles, String jti, long expiresAtMillis)
+        implements Serializable {
+
+    public VerifiedToken {
+        roles = roles != null ? List.copyOf(roles) : List.of();
+    }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,10 @@
+package com.secure.notes.security.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class TokenRefreshRequest {
+    private String refreshToken;
+}
@@ -9,6 +9,7 @@ import java.util.List;
 @Getter
 public class LoginResponse {
     private String jwtToken;
+    private String refreshToken;
     private String username;
     private List<String> roles;
 
@@ -18,4 +19,9 @@ public class LoginResponse {
         this.jwtToken = jwtToken;
     }
 
+    public LoginResponse(String username, List<String> roles, String jwtToken, String refreshToken) {
+        this(username, roles, jwtToken);
+        this.refreshToken = refreshToken;
+    }
+
 }
@@ -0,0 +1,131 @@
+package com.secure.notes.security.revocation;
+
+import com.secure.notes.cache.SharedCacheStore;
+import com.secure.notes.models.RevokedToken;
+import com.secure.notes.repositories.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deny-list of revoked token ids (jti). Revocations are persisted, but per-request checks
+ * are answered from memory: a Bloom filter rejects almost every token without touching the
+ * exact set. Other nodes learn about a revocation through pub/sub when a shared store is
+ * configured, and otherwise at the next periodic reload from the database.
+ */
+@Service
+public class TokenRevocationService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String REVOCATION_CHANNEL = "notes:revocations";
+
+    private record Snapshot(BloomFilter filter, Map<String, Long> expiries, int capacity) {
+    }
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private ObjectProvider<SharedCacheStore> sharedStore;
+
+    @Value("${spring.app.revocation.expected-revocations:100000}")
+    private int expectedRevocations;
+
+    @Value("${spring.app.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    void init() {
+        snapshot = newSnapshot(Map.of());
+        reload();
+        SharedCacheStore store = sharedStore.getIfAvailable();
+        if (store != null) {
+            store.subscribe(REVOCATION_CHANNEL, this::onRemoteRevocation);
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        Snapshot current = snapshot;
+        return current.filter().mightContain(jti) && current.expiries().containsKey(jti);
+    }
+
+    public void revoke(String jti, Instant expiresAt) {
+        revokedTokenRepository.save(new RevokedToken(jti, expiresAt, Instant.now()));
+        addLocally(jti, expiresAt.toEpochMilli());
+        SharedCacheStore store = sharedStore.getIfAvailable();
+        if (store != null) {
+            try {
+                store.publish(REVOCATION_CHANNEL, jti + ":" + expiresAt.toEpochMilli());
+            } catch (RuntimeException e) {
+                logger.warn("Could not broadcast revocation of {}, other nodes pick it up on reload: {}",
+                        jti, e.getMessage());
+            }
+        }
+    }
+
+    // Rebuilds the filter from the database, which also drops expired ids and catches
+    // revocations made on nodes that could not broadcast them
+    @Scheduled(fixedDelayString = "${spring.app.revocation.reload-interval-ms:10000}",
+            initialDelayString = "${spring.app.revocation.reload-interval-ms:10000}")
+    public void reload() {
+        Instant now = Instant.now();
+        List<RevokedToken> persisted = revokedTokenRepository.findByExpiresAtAfter(now);
+        Map<String, Long> expiries = new ConcurrentHashMap<>();
+        persisted.forEach(token -> expiries.put(token.getJti(), token.getExpiresAt().toEpochMilli()));
+        synchronized (this) {
+            // Keep ids revoked locally while the query was running
+            snapshot.expiries().forEach((jti, expiry) -> {
+                if (expiry > now.toEpochMilli()) {
+                    expiries.putIfAbsent(jti, expiry);
+                }
+            });
+            snapshot = newSnapshot(expiries);
+        }
+    }
+
+    @Scheduled(cron = "${spring.app.revocation.purge-cron:0 0 * * * *}")
+    public void purgeExpired() {
+        int purged = revokedTokenRepository.deleteExpired(Instant.now());
+        logger.debug("Purged {} expired token revocations", purged);
+    }
+
+    private void onRemoteRevocation(String message) {
+        int separator = message.lastIndexOf(':');
+        addLocally(message.substring(0, separator), Long.parseLong(message.substring(separator + 1)));
+    }
+
+    private synchronized void addLocally(String jti, long expiresAtMillis) {
+        Snapshot current = snapshot;
+        if (current.expiries().size() >= current.capacity()) {
+            // Filter is at capacity, rebuild it larger instead of letting false positives climb
+            Map<String, Long> expiries = new ConcurrentHashMap<>(current.expiries());
+            expiries.put(jti, expiresAtMillis);
+            snapshot = newSnapshot(expiries);
+            return;
+        }
+        current.expiries().put(jti, expiresAtMillis);
+        current.filter().put(jti);
+    }
+
+    private Snapshot newSnapshot(Map<String, Long> expiries) {
+        int capacity = Math.max(expectedRevocations, expiries.size() * 2);
+        BloomFilter filter = new BloomFilter(capacity, falsePositiveRate);
+        expiries.keySet().forEach(filter::put);
+        return new Snapshot(filter, new ConcurrentHashMap<>(expiries), capacity);
+    }
+}
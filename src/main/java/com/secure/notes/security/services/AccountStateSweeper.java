@@ -0,0 +1,93 @@
+package com.secure.notes.security.services;
+
+import com.secure.notes.audit.AuditEventType;
+import com.secure.notes.audit.AuditLog;
+import com.secure.notes.cache.TieredCache;
+import com.secure.notes.repositories.RefreshTokenRepository;
+import com.secure.notes.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Turns expiry dates into the account state flags ahead of time, so authentication only
+ * reads booleans. Each batch flips the flags with one set-based update, revokes the refresh
+ * tokens of the affected users and evicts them from the user details cache; access tokens
+ * already issued run out on their own short lifetime.
+ */
+@Component
+public class AccountStateSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(AccountStateSweeper.class);
+
+    private interface Finder {
+        List<UserRepository.AccountRef> find(LocalDate today, PageRequest page);
+    }
+
+    private interface Expirer {
+        int expire(List<Long> userIds, LocalDate today, LocalDateTime now);
+    }
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    TieredCache<UserDetailsImpl> userDetailsCache;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    AuditLog auditLog;
+
+    @Value("${spring.app.account-sweep.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(cron = "${spring.app.account-sweep.cron:0 5 0 * * *}")
+    public void sweep() {
+        LocalDate today = LocalDate.now();
+        int accounts = sweep(userRepository::findAccountsToExpire, userRepository::expireAccounts,
+                AuditEventType.ACCOUNT_EXPIRED, today);
+        int credentials = sweep(userRepository::findCredentialsToExpire, userRepository::expireCredentials,
+                AuditEventType.CREDENTIALS_EXPIRED, today);
+        if (accounts > 0 || credentials > 0) {
+            logger.info("Expired {} accounts and {} credentials", accounts, credentials);
+        }
+    }
+
+    private int sweep(Finder finder, Expirer expirer, AuditEventType eventType, LocalDate today) {
+        int total = 0;
+        while (true) {
+            // Flipped rows no longer match the finder, so the first page is always the next batch
+            List<UserRepository.AccountRef> batch = transactionTemplate.execute(status -> {
+                List<UserRepository.AccountRef> accounts = finder.find(today, PageRequest.of(0, batchSize));
+                if (!accounts.isEmpty()) {
+                    List<Long> userIds = accounts.stream().map(UserRepository.AccountRef::getUserId).toList();
+                    expirer.expire(userIds, today, LocalDateTime.now());
+                    refreshTokenRepository.revokeAllForUsers(userIds);
+                }
+                return accounts;
+            });
+            // After commit, so a reload cannot cache the old flags again
+            for (UserRepository.AccountRef account : batch) {
+                userDetailsCache.evict(account.getUserName());
+                auditLog.record(eventType, null, account.getUserName(), null);
+            }
+            total += batch.size();
+            if (batch.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+}
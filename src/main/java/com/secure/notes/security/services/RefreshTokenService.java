@@ -0,0 +1,117 @@
+package com.secure.notes.security.services;
+
+import com.secure.notes.models.RefreshToken;
+import com.secure.notes.models.User;
+import com.secure.notes.repositories.RefreshTokenRepository;
+import com.secure.notes.repositories.UserRepository;
+import com.secure.notes.security.jwt.InvalidRefreshTokenException;
+import com.secure.notes.util.Hashes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Opaque refresh tokens, stored hashed and rotated on every use. Presenting a token that
+ * was already rotated means it leaked, so the whole family is revoked and the legitimate
+ * client has to sign in again as well.
+ */
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Value("${spring.app.refreshExpirationMs}")
+    private long refreshExpirationMs;
+
+    public record Rotation(UserDetailsImpl userDetails, String refreshToken) {
+    }
+
+    @Transactional
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new InvalidRefreshTokenException("Refresh token is missing");
+        }
+        RefreshToken current = refreshTokenRepository.findByTokenHash(Hashes.sha256Hex(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Refresh token not found"));
+
+        if (current.isRevoked() || current.getUsedAt() != null) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            logger.warn("Refresh token reuse detected for user {}, revoked family {}",
+                    current.getUserId(), current.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        if (current.getExpiresAt().isBefore(Instant.now())) {
+            throw new InvalidRefreshTokenException("Refresh token is expired");
+        }
+
+        User user = userRepository.findById(current.getUserId())
+                .orElseThrow(() -> new InvalidRefreshTokenException("User not found"));
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        if (!userDetails.isActive()) {
+            // Locked, disabled or expired since sign-in: the sweeper revokes these tokens too,
+            // this covers the window until it runs
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            throw new InvalidRefreshTokenException("Account is not active");
+        }
+        current.setUsedAt(Instant.now());
+
+        return new Rotation(userDetails, issue(user.getUserId(), current.getFamilyId()));
+    }
+
+    @Transactional
+    public void revokeFamilyOf(String rawToken) {
+        refreshTokenRepository.findByTokenHash(Hashes.sha256Hex(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    @Transactional
+    public void revokeAllForUsers(Collection<Long> userIds) {
+        if (!userIds.isEmpty()) {
+            refreshTokenRepository.revokeAllForUsers(userIds);
+        }
+    }
+
+    @Transactional
+    @Scheduled(cron = "${spring.app.refresh-purge-cron:0 30 * * * *}")
+    public void purgeExpired() {
+        int purged = refreshTokenRepository.deleteExpired(Instant.now());
+        logger.debug("Purged {} expired refresh tokens", purged);
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(Hashes.sha256Hex(rawToken));
+        token.setFamilyId(familyId);
+        token.setUserId(userId);
+        token.setCreatedAt(Instant.now());
+        token.setExpiresAt(Instant.now().plusMillis(refreshExpirationMs));
+        refreshTokenRepository.save(token);
+        return rawToken;
+    }
+}
@@ -16,7 +16,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @NoArgsConstructor
 @Data
 public class UserDetailsImpl implements UserDetails {
-    private static final long serialVersionUID = 1L;
+    // Bumped with the account state fields, and again when cached copies stopped carrying the
+    // password: entries in the shared cache written by older nodes fail to deserialize and are reloaded
+    private static final long serialVersionUID = 3L;
 
     private Long id;
     private String username;
@@ -27,6 +29,13 @@ public class UserDetailsImpl implements UserDetails {
 
     private boolean is2faEnabled;
 
+    // Kept current by AccountStateSweeper and admin changes, so checking them costs nothing.
+    // Principals rebuilt from JWT claims keep the defaults: the token was issued to an active account
+    private boolean accountNonExpired = true;
+    private boolean accountNonLocked = true;
+    private boolean credentialsNonExpired = true;
+    private boolean enabled = true;
+
     private Collection<? extends GrantedAuthority> authorities;
 
     public UserDetailsImpl(Long id, String username, String email, String password,
@@ -42,7 +51,7 @@ public class UserDetailsImpl implements UserDetails {
     public static UserDetailsImpl build(User user) {
         GrantedAuthority authority = new SimpleGrantedAuthority(user.getRole().getRoleName().name());
 
-        return new UserDetailsImpl(
+        UserDetailsImpl details = new UserDetailsImpl(
                 user.getUserId(),
                 user.getUserName(),
                 user.getEmail(),
@@ -50,6 +59,25 @@ public class UserDetailsImpl implements UserDetails {
                 user.isTwoFactorEnabled(),
                 List.of(authority) // Wrapping the single authority in a list
         );
+        details.setAccountNonExpired(user.isAccountNonExpired());
+        details.setAccountNonLocked(user.isAccountNonLocked());
+        details.setCredentialsNonExpired(user.isCredentialsNonExpired());
+        details.setEnabled(user.isEnabled());
+        return details;
+    }
+
+    // What the users cache holds: it is shared between nodes, so the password hash stays in the database
+    public UserDetailsImpl withoutCredentials() {
+        return withPassword(null);
+    }
+
+    public UserDetailsImpl withPassword(String password) {
+        UserDetailsImpl details = new UserDetailsImpl(id, username, email, password, is2faEnabled, authorities);
+        details.setAccountNonExpired(accountNonExpired);
+        details.setAccountNonLocked(accountNonLocked);
+        details.setCredentialsNonExpired(credentialsNonExpired);
+        details.setEnabled(enabled);
+        return details;
     }
 
 
@@ -78,22 +106,28 @@ public class UserDetailsImpl implements UserDetails {
 
     @Override
     public boolean isAccountNonExpired() {
-        return true;
+        return accountNonExpired;
     }
 
     @Override
     public boolean isAccountNonLocked() {
-        return true;
+        return accountNonLocked;
     }
 
     @Override
     public boolean isCredentialsNonExpired() {
-        return true;
+        return credentialsNonExpired;
     }
 
     @Override
     public boolean isEnabled() {
-        return true;
+        return enabled;
+    }
+
+    // Whether new tokens may be issued for this account
+    @JsonIgnore
+    public boolean isActive() {
+        return accountNonExpired && accountNonLocked && credentialsNonExpired && enabled;
     }
 
     public boolean is2faEnabled() {
@@ -1,5 +1,6 @@
 package com.secure.notes.security.services;
 
+import com.secure.notes.cache.TieredCache;
 import com.secure.notes.models.User;
 import com.secure.notes.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,22 +10,34 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    TieredCache<UserDetailsImpl> userDetailsCache;
+
+    // The cache holds the account without its password, so a hit still reads the hash;
+    // every call returns its own copy
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUserName(username)
+        AtomicReference<UserDetailsImpl> loaded = new AtomicReference<>();
+        UserDetailsImpl cached = userDetailsCache.get(username, key -> {
+            User user = userRepository.findByUserName(key)
+                    .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + key));
+            loaded.set(UserDetailsImpl.build(user));
+            return loaded.get().withoutCredentials();
+        });
+        if (loaded.get() != null) {
+            return loaded.get();
+        }
+        String password = userRepository.findPasswordByUserName(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
-
-        return UserDetailsImpl.build(user);
+        return cached.withPassword(password);
     }
-
-
-
-
 }
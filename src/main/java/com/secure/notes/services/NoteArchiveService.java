@@ -0,0 +1,15 @@
+package com.secure.notes.services;
+
+import com.secure.notes.models.NoteImport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface NoteArchiveService {
+    void exportNotes(String username, Long afterId, OutputStream out) throws IOException;
+
+    NoteImport importNotes(String username, String importId, InputStream in) throws IOException;
+
+    NoteImport getImport(String username, String importId);
+}
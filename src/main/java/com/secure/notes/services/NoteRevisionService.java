@@ -0,0 +1,18 @@
+package com.secure.notes.services;
+
+import com.secure.notes.dtos.NoteRevisionDTO;
+import com.secure.notes.models.Note;
+
+import java.util.List;
+
+public interface NoteRevisionService {
+    void recordRevision(Note note, String previousContent);
+
+    List<NoteRevisionDTO> getHistory(Long noteId, String username);
+
+    NoteRevisionDTO getRevision(Long noteId, int version, String username);
+
+    void deleteHistory(Long noteId);
+
+    void compact();
+}
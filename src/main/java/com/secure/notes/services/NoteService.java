@@ -1,6 +1,10 @@
 package com.secure.notes.services;
 
+import com.secure.notes.cache.NoteFacets;
+import com.secure.notes.dtos.SharedNoteResponse;
 import com.secure.notes.models.Note;
+import com.secure.notes.models.NotePermission;
+import com.secure.notes.models.NoteShare;
 
 import java.util.List;
 
@@ -12,4 +16,20 @@ public interface NoteService {
     void deleteNoteForUser(Long noteId, String username);
 
     List<Note> getNotesForUser(String username);
+
+    List<Note> getNotesForUser(String username, String folder, String tag, Long afterId, int limit);
+
+    Note moveNoteToFolder(Long noteId, String folder, String username);
+
+    Note tagNote(Long noteId, List<String> tags, String username);
+
+    NoteFacets getFacetsForUser(String username);
+
+    List<SharedNoteResponse> getNotesSharedWithUser(String username);
+
+    NoteShare shareNote(Long noteId, String granteeUsername, NotePermission permission, String username);
+
+    void unshareNote(Long noteId, String granteeUsername, String username);
+
+    List<NoteShare> getShares(Long noteId, String username);
 }
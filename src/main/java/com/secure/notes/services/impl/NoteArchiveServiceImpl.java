@@ -0,0 +1,211 @@
+package com.secure.notes.services.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secure.notes.cache.NoteList;
+import com.secure.notes.cache.TieredCache;
+import com.secure.notes.models.Note;
+import com.secure.notes.models.NoteImport;
+import com.secure.notes.repositories.NoteImportRepository;
+import com.secure.notes.repositories.NoteRepository;
+import com.secure.notes.services.NoteArchiveService;
+import com.secure.notes.services.NoteRevisionService;
+import com.secure.notes.sharding.ShardRouter;
+import com.secure.notes.services.writebehind.WriteBehindNoteWriter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * NDJSON archives, one {@code {"id":..,"content":..}} object per line followed by a
+ * {@code {"complete":true,"exported":n}} trailer. Both directions work in fixed-size batches,
+ * each in its own short transaction, so memory does not grow with the account.
+ */
+@Service
+public class NoteArchiveServiceImpl implements NoteArchiveService {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteImportRepository noteImportRepository;
+
+    @Autowired
+    private NoteContentStore noteContentStore;
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private TieredCache<NoteList> noteListCache;
+
+    // Only present when spring.app.notes.write-behind.enabled=true
+    @Autowired(required = false)
+    private WriteBehindNoteWriter writeBehindNoteWriter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${spring.app.notes.archive.batch-size:500}")
+    private int batchSize;
+
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate writeTransaction;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Streams notes with an id above {@code afterId} in id order. An interrupted download is
+     * resumed by passing the last id received.
+     */
+    @Override
+    public void exportNotes(String username, Long afterId, OutputStream out) throws IOException {
+        long exported = 0;
+        long cursor = afterId != null ? afterId : 0L;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            List<Note> page;
+            do {
+                long from = cursor;
+                // Streams from an async thread, outside the request's shard routing
+                page = shardRouter.callFor(username, () -> readOnlyTransaction.execute(status ->
+                        noteContentStore.hydrate(noteRepository.findByOwnerUsernameAndIdGreaterThanOrderByIdAsc(
+                                username, from, PageRequest.ofSize(batchSize)))));
+                for (Note note : page) {
+                    Note current = writeBehindNoteWriter != null ? writeBehindNoteWriter.overlay(note) : note;
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", current.getId());
+                    generator.writeStringField("content", current.getContent());
+                    generator.writeEndObject();
+                    cursor = current.getId();
+                    exported++;
+                }
+                // Lets the client see progress and keeps the socket buffer, not the heap, holding the data
+                generator.flush();
+            } while (page.size() == batchSize);
+
+            generator.writeStartObject();
+            generator.writeBooleanField("complete", true);
+            generator.writeNumberField("exported", exported);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Creates a note per archive line, committing progress with every batch. Sending the same
+     * archive again with the same import id skips the lines that were already committed.
+     * Import ids are scoped to the user, and only one request at a time makes progress on an import.
+     */
+    @Override
+    public NoteImport importNotes(String username, String importId, InputStream in) throws IOException {
+        if (importId == null || importId.isBlank() || importId.length() > 64) {
+            throw new RuntimeException("Import id must be 1 to 64 characters");
+        }
+        NoteImport progress = claim(username, importId);
+        if (progress.isCompleted()) {
+            return progress;
+        }
+
+        long line = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        try (MappingIterator<JsonNode> lines = objectMapper.readerFor(JsonNode.class).readValues(in)) {
+            while (lines.hasNextValue()) {
+                JsonNode entry = lines.nextValue();
+                if (++line <= progress.getProcessedLines()) {
+                    continue;
+                }
+                if (entry.hasNonNull("content")) {
+                    batch.add(entry.get("content").asText());
+                }
+                if (batch.size() == batchSize) {
+                    progress = commitBatch(username, progress, batch, line, false);
+                    batch.clear();
+                }
+            }
+        }
+        return commitBatch(username, progress, batch, Math.max(line, progress.getProcessedLines()), true);
+    }
+
+    @Override
+    public NoteImport getImport(String username, String importId) {
+        return noteImportRepository.findByOwnerUsernameAndImportId(username, importId)
+                .orElseThrow(() -> new RuntimeException("Import not found"));
+    }
+
+    // Insert-or-fail on (owner, import id): of two requests starting the same import, the one
+    // losing the insert resumes the row the other created
+    private NoteImport claim(String username, String importId) {
+        Optional<NoteImport> existing = noteImportRepository.findByOwnerUsernameAndImportId(username, importId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            return shardRouter.callForWrite(username, () -> writeTransaction.execute(status -> {
+                NoteImport created = new NoteImport();
+                created.setImportId(importId);
+                created.setOwnerUsername(username);
+                return noteImportRepository.saveAndFlush(created);
+            }));
+        } catch (DataIntegrityViolationException e) {
+            return noteImportRepository.findByOwnerUsernameAndImportId(username, importId).orElseThrow(() -> e);
+        }
+    }
+
+    // The notes become visible with the commit, so the list is evicted per batch and not once at the end.
+    // An import outlives the request's routing check, so every batch checks again that the owner is
+    // not being moved to another shard; if so the import fails and is resumed later.
+    private NoteImport commitBatch(String username, NoteImport progress, List<String> contents,
+                                   long processedLines, boolean completed) {
+        NoteImport committed;
+        try {
+            committed = shardRouter.callForWrite(username, () -> writeTransaction.execute(status -> {
+                // IDENTITY keys make Hibernate insert one row at a time; one transaction per batch is what we save
+                for (String content : contents) {
+                    Note note = new Note();
+                    note.setOwnerUsername(username);
+                    noteContentStore.assign(note, content);
+                    noteRevisionService.recordRevision(noteRepository.save(note), null);
+                }
+                progress.setProcessedLines(processedLines);
+                progress.setImportedNotes(progress.getImportedNotes() + contents.size());
+                progress.setCompleted(completed);
+                return noteImportRepository.save(progress);
+            }));
+        } catch (OptimisticLockingFailureException e) {
+            // Another request committed a batch of this import first; this batch was rolled back
+            throw new RuntimeException("Import " + progress.getImportId() + " is being processed by another request");
+        }
+        if (!contents.isEmpty()) {
+            noteListCache.evict(username);
+        }
+        return committed;
+    }
+}
@@ -0,0 +1,160 @@
+package com.secure.notes.services.impl;
+
+import com.secure.notes.models.Note;
+import com.secure.notes.models.NoteBlob;
+import com.secure.notes.repositories.NoteBlobRepository;
+import com.secure.notes.repositories.NoteRepository;
+import com.secure.notes.security.crypto.DataKey;
+import com.secure.notes.security.crypto.DataKeyService;
+import com.secure.notes.security.crypto.NoteCipher;
+import com.secure.notes.services.tiering.NoteSegmentStore;
+import com.secure.notes.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Content-addressed storage for note bodies. Each distinct body of a user is stored once in
+ * note_blobs, encrypted under the user's data key and addressed by a keyed hash, and
+ * reference counted by the notes pointing at it. Reference counts change in the caller's
+ * transaction, together with the note row. Bodies nobody has written for a while may have
+ * been tiered out to segment files; reading them is transparent, and writing one again
+ * brings it back into the table.
+ */
+@Component
+public class NoteContentStore {
+    private static final Logger logger = LoggerFactory.getLogger(NoteContentStore.class);
+
+    @Autowired
+    private NoteBlobRepository noteBlobRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private DataKeyService dataKeyService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NoteSegmentStore noteSegmentStore;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${spring.app.notes.blobs.gc-batch-size:1000}")
+    private int gcBatchSize;
+
+    // Points the note at the blob for the new content and releases the old one; the owner must be set
+    public void assign(Note note, String content) {
+        String previousHash = note.getContentHash();
+        DataKey key = content != null ? dataKeyService.activeKey(note.getOwnerUsername()) : null;
+        String hash = content != null ? NoteCipher.dedupHash(key, content) : null;
+        if (!Objects.equals(hash, previousHash)) {
+            if (hash != null) {
+                noteBlobRepository.acquire(hash, NoteCipher.seal(key, content), key.id(), 1, LocalDateTime.now());
+            }
+            if (previousHash != null) {
+                noteBlobRepository.release(previousHash);
+            }
+        }
+        note.setContentHash(hash);
+        note.setContent(content);
+    }
+
+    public void release(Note note) {
+        if (note.getContentHash() != null) {
+            noteBlobRepository.release(note.getContentHash());
+        }
+    }
+
+    public Note hydrate(Note note) {
+        hydrate(Set.of(note));
+        return note;
+    }
+
+    // One query for all bodies, shared ones are fetched once
+    public <C extends Collection<Note>> C hydrate(C notes) {
+        Set<String> hashes = notes.stream()
+                .map(Note::getContentHash)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (hashes.isEmpty()) {
+            return notes;
+        }
+        Map<String, String> contents = noteBlobRepository.findAllById(hashes).stream()
+                .collect(Collectors.toMap(NoteBlob::getHash, this::read));
+        for (Note note : notes) {
+            if (note.getContentHash() != null) {
+                note.setContent(contents.get(note.getContentHash()));
+            }
+        }
+        return notes;
+    }
+
+    /**
+     * Moves the notes of every owner of this blob to a blob under the owner's active data key,
+     * then deletes it. Used for key rotation and for blobs written before encryption, which
+     * may still be shared between users. Must run in a transaction.
+     */
+    public void reseal(String hash) {
+        NoteBlob blob = noteBlobRepository.findById(hash).orElse(null);
+        if (blob == null) {
+            return;
+        }
+        String content = read(blob);
+        for (String owner : noteRepository.findOwnersByContentHash(hash)) {
+            DataKey key = dataKeyService.activeKey(owner);
+            String newHash = NoteCipher.dedupHash(key, content);
+            if (newHash.equals(hash)) {
+                continue;
+            }
+            int references = noteRepository.repointContent(hash, newHash, owner);
+            if (references > 0) {
+                noteBlobRepository.acquire(newHash, NoteCipher.seal(key, content), key.id(), references,
+                        LocalDateTime.now());
+            }
+        }
+        if (noteRepository.findOwnersByContentHash(hash).isEmpty()) {
+            noteBlobRepository.delete(blob);
+        }
+    }
+
+    private String read(NoteBlob blob) {
+        if (!blob.isTiered()) {
+            return blob.getContent().text();
+        }
+        return noteSegmentStore.read(new NoteSegmentStore.Location(blob.getSegmentId(), blob.getSegmentOffset(),
+                blob.getSegmentLength()), blob.getHash());
+    }
+
+    /**
+     * Deletes blobs no note refers to any more. A concurrent acquire either bumps the count
+     * first, so the row no longer matches, or runs after the delete and re-inserts the body.
+     */
+    @Scheduled(cron = "${spring.app.notes.blobs.gc-cron:0 45 * * * *}")
+    public void collectGarbage() {
+        shardRouter.forEachShard(() -> {
+            int deleted = 0;
+            int batch;
+            do {
+                batch = Objects.requireNonNull(transactionTemplate.execute(status
+                        -> noteBlobRepository.deleteOrphans(gcBatchSize)));
+                deleted += batch;
+            } while (batch == gcBatchSize);
+            logger.debug("Deleted {} orphaned note blobs", deleted);
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.secure.notes.services.impl;
+
+import com.secure.notes.cache.NoteGrants;
+import com.secure.notes.cache.TieredCache;
+import com.secure.notes.models.Note;
+import com.secure.notes.models.NotePermission;
+import com.secure.notes.models.NoteShare;
+import com.secure.notes.repositories.NoteShareRepository;
+import com.secure.notes.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decides what a user may do with a note. Owners may do anything with their own notes,
+ * everyone else needs a share. Every share a user has received is loaded with one query
+ * (one per shard when sharded) and cached per grantee, so checking a single note or a
+ * whole list costs at most that one load. Changing or removing shares evicts the grantee
+ * on every node. Call outside of transactions, a cache miss may query other shards.
+ */
+@Component
+public class NotePermissionResolver {
+
+    @Autowired
+    private NoteShareRepository noteShareRepository;
+
+    @Autowired
+    private TieredCache<NoteGrants> noteGrantsCache;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Null when the user may not even read the note
+    public NotePermission permissionFor(String username, Note note) {
+        return permissionFor(username, note, grantsOf(username));
+    }
+
+    // Notes the user may not read are left out
+    public Map<Long, NotePermission> permissionsFor(String username, Collection<Note> notes) {
+        NoteGrants grants = grantsOf(username);
+        Map<Long, NotePermission> permissions = new HashMap<>();
+        for (Note note : notes) {
+            NotePermission permission = permissionFor(username, note, grants);
+            if (permission != null) {
+                permissions.put(note.getId(), permission);
+            }
+        }
+        return permissions;
+    }
+
+    // Same answer for a missing note and a forbidden one, so ids of other users' notes can't be probed
+    public void check(String username, Note note, NotePermission required) {
+        NotePermission permission = permissionFor(username, note);
+        if (permission == null || !permission.allows(required)) {
+            throw new RuntimeException("Note not found");
+        }
+    }
+
+    // For writes, which run on the note owner's shard: the share row itself decides, not the cached
+    // grants, so a grant revoked while other nodes still hold it can't be written through
+    public void checkShare(String username, Note note, NotePermission required) {
+        if (username.equals(note.getOwnerUsername())) {
+            return;
+        }
+        NotePermission permission = noteShareRepository.findByNoteIdAndGranteeUsername(note.getId(), username)
+                .filter(share -> share.getOwnerUsername().equals(note.getOwnerUsername()))
+                .map(NoteShare::getPermission)
+                .orElse(null);
+        if (permission == null || !permission.allows(required)) {
+            throw new RuntimeException("Note not found");
+        }
+    }
+
+    // Whose shard holds the note: the sharer's when it was shared with the user, otherwise the user's own
+    public String ownerOf(String username, Long noteId) {
+        NoteGrants.Grant grant = grantsOf(username).grants().get(noteId);
+        return grant != null ? grant.ownerUsername() : username;
+    }
+
+    public NoteGrants grantsOf(String username) {
+        return noteGrantsCache.get(username, this::load);
+    }
+
+    public void evict(String granteeUsername) {
+        noteGrantsCache.evict(granteeUsername);
+    }
+
+    private static NotePermission permissionFor(String username, Note note, NoteGrants grants) {
+        if (username.equals(note.getOwnerUsername())) {
+            return NotePermission.WRITE;
+        }
+        NoteGrants.Grant grant = grants.grants().get(note.getId());
+        return grant != null && grant.ownerUsername().equals(note.getOwnerUsername()) ? grant.permission() : null;
+    }
+
+    // Shares live on their owners' shards, so a grantee's are spread over all of them. Read from the
+    // primaries, a replica lagging behind a share just evicted would get cached on every node
+    private NoteGrants load(String granteeUsername) {
+        Map<Long, NoteGrants.Grant> grants = new HashMap<>();
+        shardRouter.forEachShard(() -> transactionTemplate.executeWithoutResult(status ->
+                noteShareRepository.findByGranteeUsername(granteeUsername).forEach(share -> grants.put(
+                        share.getNoteId(), new NoteGrants.Grant(share.getOwnerUsername(), share.getPermission())))));
+        return new NoteGrants(grants);
+    }
+}
@@ -0,0 +1,194 @@
+package com.secure.notes.services.impl;
+
+import com.secure.notes.dtos.NoteRevisionDTO;
+import com.secure.notes.models.Note;
+import com.secure.notes.models.NoteRevision;
+import com.secure.notes.repositories.NoteRepository;
+import com.secure.notes.repositories.NoteRevisionRepository;
+import com.secure.notes.security.crypto.DataKeyService;
+import com.secure.notes.security.crypto.SealedText;
+import com.secure.notes.services.NoteRevisionService;
+import com.secure.notes.sharding.MaintenanceLock;
+import com.secure.notes.sharding.ShardRouter;
+import com.secure.notes.util.TextDelta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Revisions are stored as a full snapshot every {@code snapshot-interval} versions with
+ * {@link TextDelta}s in between, so reading any version applies at most
+ * {@code snapshot-interval - 1} deltas to one snapshot.
+ */
+@Service
+public class NoteRevisionServiceImpl implements NoteRevisionService {
+    private static final Logger logger = LoggerFactory.getLogger(NoteRevisionServiceImpl.class);
+
+    @Autowired
+    private NoteRevisionRepository revisionRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private DataKeyService dataKeyService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MaintenanceLock maintenanceLock;
+
+    @Value("${spring.app.notes.revisions.snapshot-interval:20}")
+    private int snapshotInterval;
+
+    @Value("${spring.app.notes.revisions.retention-days:90}")
+    private int retentionDays;
+
+    // Must run inside the transaction that persists the new content, with the note locked
+    // (NoteRepository.findForUpdate) so no other node takes the same version number
+    @Override
+    public void recordRevision(Note note, String previousContent) {
+        String content = note.getContent() != null ? note.getContent() : "";
+        NoteRevision latest = revisionRepository.findTopByNoteIdOrderByVersionDesc(note.getId()).orElse(null);
+        if (latest == null) {
+            int version = 1;
+            // Notes written before history existed get their previous content as the first version
+            if (previousContent != null && !previousContent.equals(content)) {
+                save(note, version++, true, previousContent);
+            }
+            save(note, version, true, content);
+            return;
+        }
+        if (previousContent != null && previousContent.equals(content)) {
+            return;
+        }
+
+        int version = latest.getVersion() + 1;
+        if (previousContent == null || (version - 1) % snapshotInterval == 0) {
+            save(note, version, true, content);
+        } else {
+            save(note, version, false, TextDelta.diff(previousContent, content));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<NoteRevisionDTO> getHistory(Long noteId, String username) {
+        checkOwner(noteId, username);
+        return revisionRepository.findHistory(noteId).stream()
+                .map(row -> new NoteRevisionDTO(noteId, (Integer) row[0], (LocalDateTime) row[1], null))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public NoteRevisionDTO getRevision(Long noteId, int version, String username) {
+        checkOwner(noteId, username);
+        List<NoteRevision> chain = chainTo(noteId, version);
+        NoteRevision target = chain.get(chain.size() - 1);
+        return new NoteRevisionDTO(noteId, version, target.getCreatedDate(), reconstruct(chain));
+    }
+
+    @Override
+    public void deleteHistory(Long noteId) {
+        revisionRepository.deleteByNoteId(noteId);
+    }
+
+    /**
+     * Drops revisions older than the retention period. The oldest revision that is kept
+     * becomes a snapshot, so every remaining version can still be rebuilt.
+     */
+    @Override
+    @Scheduled(cron = "${spring.app.notes.revisions.compaction-cron:0 15 3 * * *}")
+    public void compact() {
+        maintenanceLock.runExclusively("revision compaction", () -> shardRouter.forEachShard(this::compactShard));
+    }
+
+    private void compactShard() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        List<Long> noteIds = revisionRepository.findNoteIdsWithRevisionsBefore(cutoff);
+        int compacted = 0;
+        for (Long noteId : noteIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> compactNote(noteId, cutoff));
+                compacted++;
+            } catch (RuntimeException e) {
+                logger.warn("Compacting history of note {} failed: {}", noteId, e.getMessage());
+            }
+        }
+        logger.info("Compacted revision history of {} notes", compacted);
+    }
+
+    private void compactNote(Long noteId, LocalDateTime cutoff) {
+        NoteRevision latest = revisionRepository.findTopByNoteIdOrderByVersionDesc(noteId).orElse(null);
+        Integer lastExpired = revisionRepository.findLastVersionBefore(noteId, cutoff);
+        if (latest == null || lastExpired == null) {
+            return;
+        }
+        // The current version is always kept
+        int keepFrom = Math.min(lastExpired + 1, latest.getVersion());
+        List<NoteRevision> chain = chainTo(noteId, keepFrom);
+        NoteRevision base = chain.get(chain.size() - 1);
+        if (!base.isSnapshot()) {
+            String owner = noteRepository.findById(noteId).map(Note::getOwnerUsername).orElse(null);
+            if (owner == null) {
+                revisionRepository.deleteByNoteId(noteId);
+                return;
+            }
+            base.setContent(new SealedText(dataKeyService.activeKey(owner).id(), reconstruct(chain)));
+            base.setSnapshot(true);
+            revisionRepository.save(base);
+        }
+        revisionRepository.deleteOlderThan(noteId, keepFrom);
+    }
+
+    // Nearest snapshot at or before the version, followed by the deltas up to it
+    private List<NoteRevision> chainTo(Long noteId, int version) {
+        NoteRevision snapshot = revisionRepository
+                .findTopByNoteIdAndSnapshotTrueAndVersionLessThanEqualOrderByVersionDesc(noteId, version)
+                .orElseThrow(() -> new RuntimeException("Revision not found"));
+        List<NoteRevision> chain = revisionRepository
+                .findByNoteIdAndVersionBetweenOrderByVersionAsc(noteId, snapshot.getVersion(), version);
+        if (chain.isEmpty() || chain.get(chain.size() - 1).getVersion() != version) {
+            throw new RuntimeException("Revision not found");
+        }
+        return chain;
+    }
+
+    private static String reconstruct(List<NoteRevision> chain) {
+        String content = chain.get(0).getContent().text();
+        for (NoteRevision revision : chain.subList(1, chain.size())) {
+            content = TextDelta.apply(content, revision.getContent().text());
+        }
+        return content;
+    }
+
+    private void checkOwner(Long noteId, String username) {
+        Note note = noteRepository.findById(noteId).orElseThrow(()
+                -> new RuntimeException("Note not found"));
+        if (!note.getOwnerUsername().equals(username)) {
+            throw new RuntimeException("Note not found");
+        }
+    }
+
+    private void save(Note note, int version, boolean snapshot, String content) {
+        NoteRevision revision = new NoteRevision();
+        revision.setNoteId(note.getId());
+        revision.setVersion(version);
+        revision.setSnapshot(snapshot);
+        revision.setContent(new SealedText(dataKeyService.activeKey(note.getOwnerUsername()).id(), content));
+        revisionRepository.save(revision);
+    }
+}
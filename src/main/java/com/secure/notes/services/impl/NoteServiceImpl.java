@@ -1,48 +1,432 @@
 package com.secure.notes.services.impl;
 
+import com.secure.notes.audit.AuditEventType;
+import com.secure.notes.audit.AuditLog;
+import com.secure.notes.cache.NoteFacets;
+import com.secure.notes.cache.NoteList;
+import com.secure.notes.cache.TieredCache;
+import com.secure.notes.dtos.SharedNoteResponse;
+import com.secure.notes.events.NoteChangeEvent;
 import com.secure.notes.models.Note;
+import com.secure.notes.models.NoteFacetCount;
+import com.secure.notes.models.NoteFacetType;
+import com.secure.notes.models.NotePermission;
+import com.secure.notes.models.NoteShare;
+import com.secure.notes.models.NoteTag;
+import com.secure.notes.repositories.NoteFacetCountRepository;
 import com.secure.notes.repositories.NoteRepository;
+import com.secure.notes.repositories.NoteShareRepository;
+import com.secure.notes.repositories.NoteTagRepository;
+import com.secure.notes.repositories.UserRepository;
+import com.secure.notes.services.NoteRevisionService;
 import com.secure.notes.services.NoteService;
+import com.secure.notes.services.writebehind.WriteBehindNoteWriter;
+import com.secure.notes.sharding.ShardRouter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 @Service
 public class NoteServiceImpl implements NoteService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_TAGS = 20;
+    private static final int MAX_TAG_LENGTH = 64;
+    private static final int MAX_FOLDER_LENGTH = 100;
+
     @Autowired
     private NoteRepository noteRepository;
 
+    @Autowired
+    private TieredCache<NoteList> noteListCache;
+
+    // Only present when spring.app.notes.write-behind.enabled=true
+    @Autowired(required = false)
+    private WriteBehindNoteWriter writeBehindNoteWriter;
+
+    @Autowired
+    private NoteUpdateCoalescer noteUpdateCoalescer;
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NoteContentStore noteContentStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private NoteShareRepository noteShareRepository;
+
+    @Autowired
+    private NotePermissionResolver notePermissionResolver;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private NoteTagRepository noteTagRepository;
+
+    @Autowired
+    private NoteFacetCountRepository noteFacetCountRepository;
+
+    @Autowired
+    private TieredCache<NoteFacets> noteFacetsCache;
+
     @Override
+    @Transactional
     public Note createNoteForUser(String username, String content) {
         Note note = new Note();
-        note.setContent(content);
         note.setOwnerUsername(username);
+        noteContentStore.assign(note, content);
         Note savedNote = noteRepository.save(note);
+        noteRevisionService.recordRevision(savedNote, null);
+        noteListCache.evict(username);
+        // Delivered to other devices once the transaction commits
+        eventPublisher.publishEvent(new NoteChangeEvent(username, savedNote.getId(), NoteChangeEvent.Type.CREATED));
         return savedNote;
     }
 
     @Override
     public Note updateNoteForUser(Long noteId, String content, String username) {
-        Note note = noteRepository.findById(noteId).orElseThrow(()
-                -> new RuntimeException("Note not found"));
-        note.setContent(content);
-        Note updatedNote = noteRepository.save(note);
+        // Notes shared with the user are on their owner's shard
+        String owner = notePermissionResolver.ownerOf(username, noteId);
+        return shardRouter.callForWrite(owner, () -> {
+            Note note = noteRepository.findById(noteId).orElseThrow(()
+                    -> new RuntimeException("Note not found"));
+            notePermissionResolver.checkShare(username, note, NotePermission.WRITE);
+            if (writeBehindNoteWriter != null) {
+                Note journalled = writeBehindNoteWriter.update(note, content);
+                noteListCache.evict(journalled.getOwnerUsername());
+                eventPublisher.publishEvent(new NoteChangeEvent(journalled.getOwnerUsername(), noteId,
+                        NoteChangeEvent.Type.UPDATED));
+                return journalled;
+            }
+            // Autosave bursts for the same note collapse into one write, possibly made by another
+            // caller's thread, which is why access is checked before joining
+            return noteUpdateCoalescer.update(noteId, content, latest -> persistContent(noteId, latest));
+        });
+    }
+
+    private Note persistContent(Long noteId, String content) {
+        Note updatedNote = transactionTemplate.execute(status -> {
+            // Locked: the coalescer only serialises updates within this node
+            Note note = noteRepository.findForUpdate(noteId).orElseThrow(()
+                    -> new RuntimeException("Note not found"));
+            String previousContent = noteContentStore.hydrate(note).getContent();
+            noteContentStore.assign(note, content);
+            Note saved = noteRepository.save(note);
+            noteRevisionService.recordRevision(saved, previousContent);
+            return saved;
+        });
+        noteListCache.evict(updatedNote.getOwnerUsername());
+        eventPublisher.publishEvent(new NoteChangeEvent(updatedNote.getOwnerUsername(), noteId,
+                NoteChangeEvent.Type.UPDATED));
         return updatedNote;
     }
 
+    // Owners only, a write share covers the content and not the note itself
     @Override
     public void deleteNoteForUser(Long noteId, String username) {
-        noteRepository.deleteById(noteId);
+        // Grantees and caches are evicted once the delete is committed, not while it may still roll back
+        List<String> grantees = transactionTemplate.execute(status -> {
+            Optional<Note> owned = noteRepository.findForUpdate(noteId)
+                    .filter(note -> note.getOwnerUsername().equals(username));
+            if (owned.isEmpty()) {
+                return List.<String>of();
+            }
+            Note note = owned.get();
+            if (writeBehindNoteWriter != null) {
+                writeBehindNoteWriter.discard(noteId);
+            }
+            noteRevisionService.deleteHistory(noteId);
+            List<NoteShare> shares = noteShareRepository.findByNoteId(noteId);
+            noteShareRepository.deleteAllInBatch(shares);
+            List<NoteTag> tags = noteTagRepository.findByNoteId(noteId);
+            noteTagRepository.deleteAllInBatch(tags);
+            adjustFacets(username, NoteFacetType.FOLDER, Collections.singleton(note.getFolder()), List.of());
+            adjustFacets(username, NoteFacetType.TAG, tags.stream().map(NoteTag::getTag).toList(), List.of());
+            noteContentStore.release(note);
+            noteRepository.delete(note);
+            eventPublisher.publishEvent(new NoteChangeEvent(note.getOwnerUsername(), noteId,
+                    NoteChangeEvent.Type.DELETED));
+            auditLog.record(AuditEventType.NOTE_DELETE, username, String.valueOf(noteId), null);
+            return shares.stream().map(NoteShare::getGranteeUsername).toList();
+        });
+        grantees.forEach(notePermissionResolver::evict);
+        noteListCache.evict(username);
+        noteFacetsCache.evict(username);
     }
 
+    // A miss is loaded from the primary: the writer evicts before a lagging replica would have its
+    // change, and what is loaded here is cached on every node, so the author would not read their write
     @Override
     public List<Note> getNotesForUser(String username) {
-        List<Note> personalNotes = noteRepository
-                .findByOwnerUsername(username);
-        return personalNotes;
+        NoteList personalNotes = noteListCache.get(username, key -> transactionTemplate.execute(status ->
+                new NoteList(withTags(noteContentStore.hydrate(noteRepository.findByOwnerUsername(key))))));
+        List<Note> notes = personalNotes.notes().stream().map(Note::copy).toList();
+        if (writeBehindNoteWriter != null && writeBehindNoteWriter.hasPendingWrites()) {
+            return notes.stream().map(writeBehindNoteWriter::overlay).toList();
+        }
+        return notes;
+    }
+
+    // One page per call, continued with afterId = last id; each filter combination is a single
+    // indexed keyset query and tags are loaded for the page only
+    @Override
+    public List<Note> getNotesForUser(String username, String folder, String tag, Long afterId, int limit) {
+        String folderFilter = normalizeFolder(folder);
+        String tagFilter = tag != null && !tag.isBlank() ? normalizeTag(tag) : null;
+        long after = afterId != null ? afterId : 0L;
+        Pageable page = PageRequest.ofSize(Math.clamp(limit, 1, MAX_PAGE_SIZE));
+        List<Note> notes;
+        if (tagFilter != null && folderFilter != null) {
+            notes = noteRepository.findTaggedInFolder(username, tagFilter, folderFilter, after, page);
+        } else if (tagFilter != null) {
+            notes = noteRepository.findTagged(username, tagFilter, after, page);
+        } else if (folderFilter != null) {
+            notes = noteRepository.findByOwnerUsernameAndFolderAndIdGreaterThanOrderByIdAsc(username, folderFilter,
+                    after, page);
+        } else {
+            notes = noteRepository.findByOwnerUsernameAndIdGreaterThanOrderByIdAsc(username, after, page);
+        }
+        return complete(notes);
+    }
+
+    @Override
+    public Note moveNoteToFolder(Long noteId, String folder, String username) {
+        String target = normalizeFolder(folder);
+        Note moved = transactionTemplate.execute(status -> {
+            Note note = lockedOwnedNote(noteId, username);
+            if (!Objects.equals(note.getFolder(), target)) {
+                adjustFacets(username, NoteFacetType.FOLDER, Collections.singleton(note.getFolder()),
+                        Collections.singleton(target));
+                note.setFolder(target);
+                eventPublisher.publishEvent(new NoteChangeEvent(username, noteId, NoteChangeEvent.Type.UPDATED));
+            }
+            return note;
+        });
+        noteListCache.evict(username);
+        noteFacetsCache.evict(username);
+        return complete(List.of(moved)).getFirst();
+    }
+
+    // Replaces the note's tags; only the difference is written and counted
+    @Override
+    public Note tagNote(Long noteId, List<String> tags, String username) {
+        Set<String> wanted = new TreeSet<>();
+        for (String tag : tags) {
+            if (tag != null && !tag.isBlank()) {
+                wanted.add(normalizeTag(tag));
+            }
+        }
+        if (wanted.size() > MAX_TAGS) {
+            throw new RuntimeException("A note can have at most " + MAX_TAGS + " tags");
+        }
+        Note tagged = transactionTemplate.execute(status -> {
+            Note note = lockedOwnedNote(noteId, username);
+            Set<String> current = noteTagRepository.findByNoteId(noteId).stream()
+                    .map(NoteTag::getTag)
+                    .collect(Collectors.toSet());
+            Set<String> removed = new HashSet<>(current);
+            removed.removeAll(wanted);
+            Set<String> added = new HashSet<>(wanted);
+            added.removeAll(current);
+            if (removed.isEmpty() && added.isEmpty()) {
+                return note;
+            }
+            if (!removed.isEmpty()) {
+                noteTagRepository.deleteTags(noteId, removed);
+            }
+            noteTagRepository.saveAll(added.stream().map(tag -> new NoteTag(noteId, username, tag)).toList());
+            adjustFacets(username, NoteFacetType.TAG, removed, added);
+            eventPublisher.publishEvent(new NoteChangeEvent(username, noteId, NoteChangeEvent.Type.UPDATED));
+            return note;
+        });
+        noteListCache.evict(username);
+        noteFacetsCache.evict(username);
+        return complete(List.of(tagged)).getFirst();
+    }
+
+    // Reads the maintained counts, never COUNT(*) over the notes; from the primary like the note list
+    @Override
+    public NoteFacets getFacetsForUser(String username) {
+        return noteFacetsCache.get(username, key -> transactionTemplate.execute(status -> {
+            Map<String, Long> folders = new HashMap<>();
+            Map<String, Long> tags = new HashMap<>();
+            for (NoteFacetCount count : noteFacetCountRepository.findByOwnerUsername(key)) {
+                (count.getType() == NoteFacetType.FOLDER ? folders : tags).put(count.getName(), count.getNoteCount());
+            }
+            return new NoteFacets(folders, tags);
+        }));
     }
-}
 
+    // One cached grant lookup, then one query per shard holding notes shared with the user
+    @Override
+    public List<SharedNoteResponse> getNotesSharedWithUser(String username) {
+        List<Note> notes = new ArrayList<>();
+        Map<String, List<Long>> idsByShard = new HashMap<>();
+        Map<String, String> ownerByShard = new HashMap<>();
+        notePermissionResolver.grantsOf(username).grants().forEach((noteId, grant) -> {
+            String shard = Objects.toString(shardRouter.shardFor(grant.ownerUsername()), "");
+            idsByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(noteId);
+            ownerByShard.putIfAbsent(shard, grant.ownerUsername());
+        });
+        idsByShard.forEach((shard, ids) -> notes.addAll(shardRouter.callFor(ownerByShard.get(shard),
+                () -> noteContentStore.hydrate(noteRepository.findAllById(ids)))));
+        Map<Long, NotePermission> permissions = notePermissionResolver.permissionsFor(username, notes);
+        return notes.stream()
+                .filter(note -> permissions.containsKey(note.getId()))
+                .map(note -> writeBehindNoteWriter != null ? writeBehindNoteWriter.overlay(note) : note)
+                .sorted(Comparator.comparing(Note::getId))
+                .map(note -> SharedNoteResponse.from(note, permissions.get(note.getId())))
+                .toList();
+    }
+
+    // Granting again replaces the permission
+    @Override
+    public NoteShare shareNote(Long noteId, String granteeUsername, NotePermission permission, String username) {
+        if (granteeUsername.equals(username)) {
+            throw new RuntimeException("Notes cannot be shared with their owner");
+        }
+        // Users are on the home shard, so this runs before the transaction on the owner's
+        if (!shardRouter.callOnHome(() -> userRepository.existsByUserName(granteeUsername))) {
+            throw new RuntimeException("User not found");
+        }
+        NoteShare saved = transactionTemplate.execute(status -> {
+            ownedNote(noteId, username);
+            NoteShare share = noteShareRepository.findByNoteIdAndGranteeUsername(noteId, granteeUsername)
+                    .orElseGet(() -> new NoteShare(noteId, username, granteeUsername));
+            share.setPermission(permission);
+            return noteShareRepository.save(share);
+        });
+        notePermissionResolver.evict(granteeUsername);
+        auditLog.record(AuditEventType.NOTE_SHARE, username, String.valueOf(noteId),
+                granteeUsername + ":" + permission);
+        return saved;
+    }
+
+    @Override
+    public void unshareNote(Long noteId, String granteeUsername, String username) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ownedNote(noteId, username);
+            noteShareRepository.findByNoteIdAndGranteeUsername(noteId, granteeUsername)
+                    .ifPresent(noteShareRepository::delete);
+        });
+        notePermissionResolver.evict(granteeUsername);
+        auditLog.record(AuditEventType.NOTE_UNSHARE, username, String.valueOf(noteId), granteeUsername);
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<NoteShare> getShares(Long noteId, String username) {
+        ownedNote(noteId, username);
+        return noteShareRepository.findByNoteId(noteId);
+    }
+
+    private Note ownedNote(Long noteId, String username) {
+        return noteRepository.findById(noteId)
+                .filter(note -> note.getOwnerUsername().equals(username))
+                .orElseThrow(() -> new RuntimeException("Note not found"));
+    }
+
+    private Note lockedOwnedNote(Long noteId, String username) {
+        return noteRepository.findForUpdate(noteId)
+                .filter(note -> note.getOwnerUsername().equals(username))
+                .orElseThrow(() -> new RuntimeException("Note not found"));
+    }
+
+    // Must run in the transaction that changes the folder or tags. Rows are upserted in the order of
+    // their (type, name) key, folders before tags, so two changes of one owner's overlapping facets
+    // wait for each other instead of deadlocking. Only the rows lowered here can have emptied.
+    private void adjustFacets(String username, NoteFacetType type, Collection<String> removed,
+                              Collection<String> added) {
+        SortedMap<String, Long> deltas = new TreeMap<>();
+        removed.stream().filter(Objects::nonNull).forEach(name -> deltas.merge(name, -1L, Long::sum));
+        added.stream().filter(Objects::nonNull).forEach(name -> deltas.merge(name, 1L, Long::sum));
+        deltas.values().removeIf(delta -> delta == 0);
+        deltas.forEach((name, delta) -> noteFacetCountRepository.adjust(username, type.name(), name, delta));
+        List<String> lowered = deltas.entrySet().stream()
+                .filter(entry -> entry.getValue() < 0)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!lowered.isEmpty()) {
+            noteFacetCountRepository.deleteEmpty(username, type, lowered);
+        }
+    }
+
+    // Bodies, tags and not yet flushed writes of notes read from the database
+    private List<Note> complete(List<Note> notes) {
+        withTags(noteContentStore.hydrate(notes));
+        if (writeBehindNoteWriter != null && writeBehindNoteWriter.hasPendingWrites()) {
+            return notes.stream().map(writeBehindNoteWriter::overlay).toList();
+        }
+        return notes;
+    }
+
+    // One query for the tags of all the notes
+    private List<Note> withTags(List<Note> notes) {
+        if (notes.isEmpty()) {
+            return notes;
+        }
+        Map<Long, List<String>> tags = noteTagRepository.findByNoteIdIn(notes.stream().map(Note::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(NoteTag::getNoteId,
+                        Collectors.mapping(NoteTag::getTag, Collectors.toList())));
+        for (Note note : notes) {
+            note.setTags(tags.getOrDefault(note.getId(), List.of()).stream().sorted().toList());
+        }
+        return notes;
+    }
+
+    private static String normalizeFolder(String folder) {
+        if (folder == null || folder.isBlank()) {
+            return null;
+        }
+        String normalized = folder.strip();
+        if (normalized.length() > MAX_FOLDER_LENGTH) {
+            throw new RuntimeException("Folder names are at most " + MAX_FOLDER_LENGTH + " characters");
+        }
+        return normalized;
+    }
+
+    // Tags are case-insensitive
+    private static String normalizeTag(String tag) {
+        String normalized = tag.strip().toLowerCase(Locale.ROOT);
+        if (normalized.length() > MAX_TAG_LENGTH) {
+            throw new RuntimeException("Tags are at most " + MAX_TAG_LENGTH + " characters");
+        }
+        return normalized;
+    }
+}
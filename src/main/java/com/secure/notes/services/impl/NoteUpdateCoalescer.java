@@ -0,0 +1,132 @@
+package com.secure.notes.services.impl;
+
+import com.secure.notes.models.Note;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Merges concurrent updates of the same note into one database write. The first caller
+ * for a note becomes the writer; callers arriving while it writes only replace the pending
+ * content and wait. When the write finishes the writer persists the latest pending content
+ * once for all of them, and every caller gets the note as persisted by the write that
+ * included its update. After a bounded number of writes the writer returns and hands the
+ * role to one of the waiting callers, so no caller writes for others indefinitely under
+ * sustained updates. Notes are spread over lock stripes so unrelated notes never contend.
+ */
+@Component
+public class NoteUpdateCoalescer {
+
+    private static final int STRIPES = 64;
+
+    // Writes a leader makes before handing over
+    private static final int MAX_ROUNDS = 4;
+
+    // Completes a waiter's future to make it the next leader; its update is still pending
+    private static final Note HANDOFF = new Note();
+
+    private static final class Slot {
+        String content;
+        List<CompletableFuture<Note>> waiters = new ArrayList<>();
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Slot> slots = new HashMap<>();
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public NoteUpdateCoalescer() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * @param writer persists the given content for {@code noteId} and returns the saved note
+     */
+    public Note update(Long noteId, String content, Function<String, Note> writer) {
+        Stripe stripe = stripes[Math.floorMod(Long.hashCode(noteId), STRIPES)];
+        CompletableFuture<Note> result = new CompletableFuture<>();
+        boolean leader;
+        stripe.lock.lock();
+        try {
+            Slot slot = stripe.slots.get(noteId);
+            leader = slot == null;
+            if (leader) {
+                slot = new Slot();
+                stripe.slots.put(noteId, slot);
+            }
+            slot.content = content;
+            slot.waiters.add(result);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        while (true) {
+            if (leader) {
+                drain(stripe, noteId, writer);
+            }
+            Note saved;
+            try {
+                saved = result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+            if (saved != HANDOFF) {
+                return saved;
+            }
+            // The slot stays registered during a handoff, so the next write covers this update
+            result = new CompletableFuture<>();
+            stripe.lock.lock();
+            try {
+                stripe.slots.get(noteId).waiters.add(result);
+            } finally {
+                stripe.lock.unlock();
+            }
+            leader = true;
+        }
+    }
+
+    private void drain(Stripe stripe, Long noteId, Function<String, Note> writer) {
+        for (int round = 0; ; round++) {
+            String content;
+            List<CompletableFuture<Note>> waiters;
+            stripe.lock.lock();
+            try {
+                Slot slot = stripe.slots.get(noteId);
+                if (slot.waiters.isEmpty()) {
+                    stripe.slots.remove(noteId);
+                    return;
+                }
+                if (round == MAX_ROUNDS) {
+                    slot.waiters.remove(0).complete(HANDOFF);
+                    return;
+                }
+                content = slot.content;
+                waiters = slot.waiters;
+                slot.waiters = new ArrayList<>();
+            } finally {
+                stripe.lock.unlock();
+            }
+
+            try {
+                Note saved = writer.apply(content);
+                waiters.forEach(waiter -> waiter.complete(saved));
+            } catch (RuntimeException e) {
+                waiters.forEach(waiter -> waiter.completeExceptionally(e));
+            }
+        }
+    }
+}
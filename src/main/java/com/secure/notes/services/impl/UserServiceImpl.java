@@ -1,14 +1,19 @@
 package com.secure.notes.services.impl;
 
+import com.secure.notes.audit.AuditEventType;
+import com.secure.notes.audit.AuditLog;
+import com.secure.notes.cache.TieredCache;
 import com.secure.notes.dtos.UserDTO;
 import com.secure.notes.models.AppRole;
 import com.secure.notes.models.Role;
 import com.secure.notes.models.User;
 import com.secure.notes.repositories.RoleRepository;
 import com.secure.notes.repositories.UserRepository;
+import com.secure.notes.security.services.UserDetailsImpl;
 import com.secure.notes.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,6 +27,12 @@ public class UserServiceImpl implements UserService {
     @Autowired
     RoleRepository roleRepository;
 
+    @Autowired
+    TieredCache<UserDetailsImpl> userDetailsCache;
+
+    @Autowired
+    AuditLog auditLog;
+
     @Override
     public void updateUserRole(Long userId, String roleName) {
         User user = userRepository.findById(userId).orElseThrow(()
@@ -31,15 +42,19 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new RuntimeException("Role not found"));
         user.setRole(role);
         userRepository.save(user);
+        userDetailsCache.evict(user.getUserName());
+        auditLog.record(AuditEventType.ROLE_CHANGE, AuditLog.currentActor(), user.getUserName(), appRole.name());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
 
     @Override
+    @Transactional(readOnly = true)
     public UserDTO getUserById(Long id) {
 //        return userRepository.findById(id).orElseThrow();
         User user = userRepository.findById(id).orElseThrow();
@@ -67,6 +82,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public User findByUsername(String username) {
         Optional<User> user = userRepository.findByUserName(username);
         return user.orElseThrow(() -> new RuntimeException("User not found with username: " + username));
@@ -0,0 +1,84 @@
+package com.secure.notes.services.tiering;
+
+import com.secure.notes.sharding.ShardRouter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * {@link SegmentRegistry} on the note_segments table of the home database. Lease times come from
+ * the nodes' clocks, which are assumed to be NTP-synced to well within a lease. Every write commits
+ * on its own, the pool may have auto-commit off and would roll back an update made outside a
+ * transaction.
+ */
+public class JdbcSegmentRegistry implements SegmentRegistry {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    public JdbcSegmentRegistry(DataSource dataSource, ShardRouter shardRouter) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public int open(String node, Instant leaseUntil) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        write(() -> jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "insert into note_segments (node, lease_until) values (?, ?)", new String[]{"id"});
+            statement.setString(1, node);
+            statement.setTimestamp(2, Timestamp.from(leaseUntil));
+            return statement;
+        }, keyHolder));
+        return Objects.requireNonNull(keyHolder.getKey()).intValue();
+    }
+
+    @Override
+    public boolean renew(int segmentId, String node, Instant leaseUntil) {
+        return write(() -> jdbcTemplate.update(
+                "update note_segments set lease_until = ? where id = ? and node = ? and lease_until is not null",
+                Timestamp.from(leaseUntil), segmentId, node)) == 1;
+    }
+
+    @Override
+    public void close(int segmentId) {
+        write(() -> jdbcTemplate.update("update note_segments set lease_until = null where id = ?", segmentId));
+    }
+
+    @Override
+    public int closeExpired(Instant now) {
+        return write(() -> jdbcTemplate.update(
+                "update note_segments set lease_until = null where lease_until < ?", Timestamp.from(now)));
+    }
+
+    @Override
+    public Set<Integer> openSegments() {
+        return shardRouter.callOnHome(() -> new HashSet<>(jdbcTemplate.queryForList(
+                "select id from note_segments where lease_until is not null", Integer.class)));
+    }
+
+    @Override
+    public void forget(int segmentId) {
+        write(() -> jdbcTemplate.update("delete from note_segments where id = ?", segmentId));
+    }
+
+    private int write(Supplier<Integer> update) {
+        return shardRouter.callOnHome(() -> transactionTemplate.execute(status -> update.get()));
+    }
+}
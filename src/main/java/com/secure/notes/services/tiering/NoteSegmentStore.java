@@ -0,0 +1,331 @@
+package com.secure.notes.services.tiering;
+
+import com.secure.notes.security.crypto.DataKey;
+import com.secure.notes.security.crypto.DataKeyService;
+import com.secure.notes.security.crypto.NoteCipher;
+import com.secure.notes.security.crypto.SealedText;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only segment files for tiered note bodies. Each entry is
+ * {@code magic | keyId | hash | length | AES-GCM(deflate(body))}, with the key id and hash
+ * authenticated as associated data, so an entry can only be read back as the blob it was
+ * written for and can be copied between segments as is. The offset index is the location
+ * stored on the blob row; reads go through a read-only mapping of the whole segment.
+ * <p>
+ * The directory may be shared by several nodes. Segment ids come from the {@link SegmentRegistry},
+ * and the segment a node appends to is leased to it, so compaction on another node never
+ * rewrites or deletes it. Creating and deleting a file also syncs the directory.
+ */
+public class NoteSegmentStore implements DisposableBean {
+
+    public record Location(int segmentId, long offset, int length) {
+    }
+
+    private static final int MAGIC = 0x4E42_5331; // "NBS1"
+    private static final int HASH_LENGTH = 64;
+    private static final int HEADER_LENGTH = Integer.BYTES + Long.BYTES + HASH_LENGTH + Integer.BYTES;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.seg");
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final DataKeyService dataKeyService;
+    private final SegmentRegistry registry;
+    private final Duration lease;
+    private final String node = UUID.randomUUID().toString();
+    private final Map<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+
+    // Appends, rollover and deletes; not synchronized, file I/O would pin virtual threads
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private FileChannel active;
+    private int activeId;
+    private long activeSize;
+    private Instant leaseUntil;
+
+    // Nothing is opened before the first append; a segment from a previous run is never appended
+    // to again, its tail may be torn
+    public NoteSegmentStore(TieringProperties properties, DataKeyService dataKeyService, SegmentRegistry registry) {
+        this.directory = Path.of(properties.getDirectory());
+        this.maxSegmentBytes = Math.min(properties.getMaxSegmentSize().toBytes(), Integer.MAX_VALUE);
+        this.dataKeyService = dataKeyService;
+        this.registry = registry;
+        this.lease = properties.getSegmentLease();
+    }
+
+    public Location append(String hash, SealedText content) {
+        DataKey key = dataKeyService.key(content.keyId());
+        byte[] payload = NoteCipher.sealBytes(key, deflate(content.text().getBytes(StandardCharsets.UTF_8)),
+                associatedData(key.id(), hash));
+        ByteBuffer entry = ByteBuffer.allocate(HEADER_LENGTH + payload.length)
+                .putInt(MAGIC)
+                .putLong(key.id())
+                .put(hash.getBytes(StandardCharsets.US_ASCII))
+                .putInt(payload.length)
+                .put(payload)
+                .flip();
+        return write(entry);
+    }
+
+    // Copies an entry verbatim into the active segment, for compaction
+    public Location copy(Location from) {
+        return write(entry(from));
+    }
+
+    public String read(Location location, String expectedHash) {
+        ByteBuffer entry = entry(location);
+        if (entry.getInt() != MAGIC) {
+            throw new IllegalStateException("No note entry at " + location);
+        }
+        long keyId = entry.getLong();
+        byte[] hash = new byte[HASH_LENGTH];
+        entry.get(hash);
+        String storedHash = new String(hash, StandardCharsets.US_ASCII);
+        if (!storedHash.equals(expectedHash)) {
+            throw new IllegalStateException("Entry at " + location + " belongs to blob " + storedHash);
+        }
+        byte[] payload = new byte[entry.getInt()];
+        entry.get(payload);
+        byte[] body = NoteCipher.openBytes(dataKeyService.key(keyId), payload, associatedData(keyId, storedHash));
+        return new String(inflate(body), StandardCharsets.UTF_8);
+    }
+
+    // Makes everything appended so far durable
+    public void sync() {
+        writeLock.lock();
+        try {
+            if (active != null) {
+                active.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot sync note segment " + activeId, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // 0 before the first append
+    public int activeSegmentId() {
+        return activeId;
+    }
+
+    public TreeSet<Integer> segmentIds() {
+        TreeSet<Integer> ids = new TreeSet<>();
+        if (!Files.isDirectory(directory)) {
+            return ids;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Integer.parseInt(matcher.group(1)));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list note segments in " + directory, e);
+        }
+        return ids;
+    }
+
+    public long size(int segmentId) {
+        try {
+            return Files.size(path(segmentId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read size of note segment " + segmentId, e);
+        }
+    }
+
+    public void delete(int segmentId) {
+        writeLock.lock();
+        try {
+            if (segmentId == activeId && active != null || registry.openSegments().contains(segmentId)) {
+                throw new IllegalArgumentException("Cannot delete segment " + segmentId + ", a node still appends to it");
+            }
+            // The mapping itself is released by the garbage collector
+            mappings.remove(segmentId);
+            Files.deleteIfExists(path(segmentId));
+            syncDirectory();
+            registry.forget(segmentId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete note segment " + segmentId, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        writeLock.lock();
+        try {
+            if (active != null) {
+                active.force(false);
+                active.close();
+                active = null;
+                registry.close(activeId);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Location write(ByteBuffer entry) {
+        writeLock.lock();
+        try {
+            int length = entry.remaining();
+            if (active == null || activeSize + length > maxSegmentBytes && activeSize > 0 || !holdsLease()) {
+                roll();
+            }
+            long offset = activeSize;
+            while (entry.hasRemaining()) {
+                active.write(entry);
+            }
+            activeSize += length;
+            return new Location(activeId, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to note segment " + activeId, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Renews the lease once half of it is used up. False when it ran out and another node's
+    // compaction closed the segment, which may then be rewritten and deleted at any time.
+    private boolean holdsLease() {
+        Instant now = Instant.now();
+        if (now.isBefore(leaseUntil.minus(lease.dividedBy(2)))) {
+            return true;
+        }
+        Instant renewed = now.plus(lease);
+        if (!registry.renew(activeId, node, renewed)) {
+            return false;
+        }
+        leaseUntil = renewed;
+        return true;
+    }
+
+    private void roll() throws IOException {
+        if (active != null) {
+            active.force(false);
+            active.close();
+            active = null;
+            registry.close(activeId);
+        }
+        Files.createDirectories(directory);
+        while (active == null) {
+            Instant until = Instant.now().plus(lease);
+            int id = registry.open(node, until);
+            try {
+                active = FileChannel.open(path(id), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                activeId = id;
+                leaseUntil = until;
+            } catch (FileAlreadyExistsException e) {
+                // Written before segment ids came from the registry; compaction handles it like any closed segment
+                registry.close(id);
+            }
+        }
+        syncDirectory();
+        activeSize = 0;
+    }
+
+    // Makes a created or deleted file name durable. Windows cannot open a directory, which
+    // only affects development machines.
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // Not supported on this platform
+        }
+    }
+
+    private ByteBuffer entry(Location location) {
+        long end = location.offset() + location.length();
+        // The active segment grows, so its mapping is replaced once it no longer covers the entry
+        MappedByteBuffer mapping = mappings.compute(location.segmentId(),
+                (id, current) -> current != null && current.capacity() >= end ? current : map(id));
+        if (mapping.capacity() < end) {
+            throw new IllegalStateException("Note segment " + location.segmentId() + " is shorter than " + end);
+        }
+        return mapping.slice(Math.toIntExact(location.offset()), location.length());
+    }
+
+    private MappedByteBuffer map(int segmentId) {
+        try (FileChannel channel = FileChannel.open(path(segmentId), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Note segment " + segmentId + " is missing from " + directory, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map note segment " + segmentId, e);
+        }
+    }
+
+    private Path path(int segmentId) {
+        return directory.resolve("segment-" + segmentId + ".seg");
+    }
+
+    private static byte[] associatedData(long keyId, String hash) {
+        return ("seg1$" + keyId + "$" + hash).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && inflater.needsInput()) {
+                    throw new IllegalStateException("Truncated note entry");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt note entry", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.secure.notes.services.tiering;
+
+import com.secure.notes.models.NoteBlob;
+import com.secure.notes.repositories.NoteBlobRepository;
+import com.secure.notes.sharding.MaintenanceLock;
+import com.secure.notes.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Moves cold note bodies out of note_blobs into segment files and rewrites segments that
+ * are mostly dead. Entries are always appended and synced before the rows pointing at them
+ * commit, so a crash leaves at most unreferenced bytes behind. Segment files emptied by
+ * compaction are deleted on the following run, giving reads that loaded the old location
+ * a full interval to finish. Segments still open on some node are left alone, and both jobs
+ * hold the {@link MaintenanceLock}: tiering rows are committed after their segment may already
+ * be closed, which compaction elsewhere would otherwise take for an empty segment.
+ */
+public class NoteTieringJob {
+    private static final Logger logger = LoggerFactory.getLogger(NoteTieringJob.class);
+
+    private final TieringProperties properties;
+    private final NoteBlobRepository noteBlobRepository;
+    private final NoteSegmentStore segmentStore;
+    private final SegmentRegistry segmentRegistry;
+    private final MaintenanceLock maintenanceLock;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    public NoteTieringJob(TieringProperties properties, NoteBlobRepository noteBlobRepository,
+                          NoteSegmentStore segmentStore, SegmentRegistry segmentRegistry,
+                          MaintenanceLock maintenanceLock, TransactionTemplate transactionTemplate,
+                          ShardRouter shardRouter) {
+        this.properties = properties;
+        this.noteBlobRepository = noteBlobRepository;
+        this.segmentStore = segmentStore;
+        this.segmentRegistry = segmentRegistry;
+        this.maintenanceLock = maintenanceLock;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+    }
+
+    // Tiering and compaction must not interleave: compaction deletes segments without live
+    // rows, which includes one whose rows tiering has not committed yet
+    @Scheduled(cron = "${spring.app.notes.tiering.tier-cron:0 30 2 * * *}")
+    public void tierColdBlobs() {
+        maintenanceLock.runExclusively("note tiering", () -> shardRouter.forEachShard(this::tierShard));
+    }
+
+    private void tierShard() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getColdAfter());
+        int batchSize = properties.getBatchSize();
+        int moved = 0;
+        List<String> hashes;
+        do {
+            hashes = noteBlobRepository.findColdHashes(cutoff, batchSize);
+            List<Tiered> tiered = new ArrayList<>(hashes.size());
+            for (NoteBlob blob : noteBlobRepository.findAllById(hashes)) {
+                // Bodies written before encryption stay until key rotation has sealed them
+                if (blob.getContent() != null && !blob.getContent().isLegacy()) {
+                    tiered.add(new Tiered(blob.getHash(), blob.getContent().keyId(),
+                            segmentStore.append(blob.getHash(), blob.getContent())));
+                }
+            }
+            segmentStore.sync();
+            moved += Objects.requireNonNull(transactionTemplate.execute(status -> {
+                int rows = 0;
+                for (Tiered entry : tiered) {
+                    rows += noteBlobRepository.moveToSegment(entry.hash(), entry.location().segmentId(),
+                            entry.location().offset(), entry.location().length(), entry.keyId(), cutoff);
+                }
+                return rows;
+            }));
+        } while (hashes.size() == batchSize);
+        logger.info("Tiered {} cold note bodies to segment files", moved);
+    }
+
+    @Scheduled(cron = "${spring.app.notes.tiering.compaction-cron:0 30 3 * * SUN}")
+    public void compactSegments() {
+        maintenanceLock.runExclusively("segment compaction", this::compact);
+    }
+
+    private void compact() {
+        int expired = segmentRegistry.closeExpired(Instant.now());
+        if (expired > 0) {
+            logger.info("Closed {} note segments whose node stopped renewing their lease", expired);
+        }
+        // Listed before asking for open segments: a file is only created once its segment is
+        // registered, so a listed segment some node still appends to is always in the open set
+        TreeSet<Integer> segmentIds = segmentStore.segmentIds();
+        Set<Integer> open = segmentRegistry.openSegments();
+        // Segment files are shared by all shards, so usage is summed over every shard
+        Map<Integer, Long> liveBytes = new HashMap<>();
+        shardRouter.forEachShard(() -> noteBlobRepository.findSegmentUsage().forEach(usage ->
+                liveBytes.merge(usage.getSegmentId(), usage.getLiveBytes(), Long::sum)));
+        for (int segmentId : segmentIds) {
+            // Still appended to, on this node or another one
+            if (open.contains(segmentId)) {
+                continue;
+            }
+            long live = liveBytes.getOrDefault(segmentId, 0L);
+            if (live == 0) {
+                segmentStore.delete(segmentId);
+                logger.info("Deleted note segment {}, no live entries left", segmentId);
+            } else if (live < segmentStore.size(segmentId) * (1 - properties.getMaxDeadRatio())) {
+                int[] relocated = new int[1];
+                shardRouter.forEachShard(() -> relocated[0] += relocate(segmentId));
+                logger.info("Compacted note segment {}, {} live entries moved", segmentId, relocated[0]);
+            }
+        }
+    }
+
+    private int relocate(int segmentId) {
+        int batchSize = properties.getBatchSize();
+        int relocated = 0;
+        List<NoteBlob> blobs;
+        do {
+            blobs = noteBlobRepository.findBySegmentId(segmentId, PageRequest.ofSize(batchSize));
+            List<Tiered> copies = new ArrayList<>(blobs.size());
+            for (NoteBlob blob : blobs) {
+                NoteSegmentStore.Location from = new NoteSegmentStore.Location(segmentId, blob.getSegmentOffset(),
+                        blob.getSegmentLength());
+                copies.add(new Tiered(blob.getHash(), blob.getSegmentKeyId(), segmentStore.copy(from)));
+            }
+            segmentStore.sync();
+            relocated += Objects.requireNonNull(transactionTemplate.execute(status -> {
+                int rows = 0;
+                for (Tiered copy : copies) {
+                    rows += noteBlobRepository.relocate(copy.hash(), segmentId, copy.location().segmentId(),
+                            copy.location().offset());
+                }
+                return rows;
+            }));
+        } while (blobs.size() == batchSize);
+        return relocated;
+    }
+
+    private record Tiered(String hash, long keyId, NoteSegmentStore.Location location) {
+    }
+}
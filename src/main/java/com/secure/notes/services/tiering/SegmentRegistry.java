@@ -0,0 +1,28 @@
+package com.secure.notes.services.tiering;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Cluster-wide bookkeeping for segment files in a directory shared by every node: hands out
+ * segment ids and leases each open segment to the node appending to it.
+ */
+public interface SegmentRegistry {
+
+    // A segment id no node has used before, leased to the node until the given time
+    int open(String node, Instant leaseUntil);
+
+    // False once the lease is gone; the node must stop appending to the segment
+    boolean renew(int segmentId, String node, Instant leaseUntil);
+
+    // The node is done with the segment, compaction may rewrite and delete it from now on
+    void close(int segmentId);
+
+    // Closes segments whose node stopped renewing, such as one that crashed
+    int closeExpired(Instant now);
+
+    Set<Integer> openSegments();
+
+    // The segment file is gone
+    void forget(int segmentId);
+}
@@ -0,0 +1,44 @@
+package com.secure.notes.services.tiering;
+
+import com.secure.notes.repositories.NoteBlobRepository;
+import com.secure.notes.security.crypto.DataKeyService;
+import com.secure.notes.sharding.MaintenanceLock;
+import com.secure.notes.sharding.ShardRouter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(TieringProperties.class)
+public class TieringConfig {
+
+    @Bean
+    public SegmentRegistry segmentRegistry(DataSource dataSource, ShardRouter shardRouter) {
+        return new JdbcSegmentRegistry(dataSource, shardRouter);
+    }
+
+    // Always present: bodies tiered earlier stay readable with the jobs switched off
+    @Bean
+    public NoteSegmentStore noteSegmentStore(TieringProperties properties, DataKeyService dataKeyService,
+                                             SegmentRegistry segmentRegistry) {
+        return new NoteSegmentStore(properties, dataKeyService, segmentRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.app.notes.tiering.enabled", havingValue = "true")
+    public NoteTieringJob noteTieringJob(TieringProperties properties,
+                                         NoteBlobRepository noteBlobRepository,
+                                         NoteSegmentStore noteSegmentStore,
+                                         SegmentRegistry segmentRegistry,
+                                         MaintenanceLock maintenanceLock,
+                                         PlatformTransactionManager transactionManager,
+                                         ShardRouter shardRouter) {
+        return new NoteTieringJob(properties, noteBlobRepository, noteSegmentStore, segmentRegistry,
+                maintenanceLock, new TransactionTemplate(transactionManager), shardRouter);
+    }
+}
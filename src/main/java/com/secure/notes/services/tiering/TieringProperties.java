@@ -0,0 +1,32 @@
+package com.secure.notes.services.tiering;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "spring.app.notes.tiering")
+public class TieringProperties {
+
+    // Only the tiering and compaction jobs; tiered bodies are always readable
+    private boolean enabled = false;
+
+    private String directory = "data/segments";
+
+    // Bodies no note has been written with for this long leave the database
+    private Duration coldAfter = Duration.ofDays(90);
+
+    private int batchSize = 500;
+
+    // A new segment file is started once the current one reaches this size (at most 2 GB, one mapping)
+    private DataSize maxSegmentSize = DataSize.ofMegabytes(256);
+
+    // Segments with a larger share of dead entries are rewritten by compaction
+    private double maxDeadRatio = 0.5;
+
+    // How long a node's open segment stays protected from compaction without being renewed;
+    // appends renew it once half has passed
+    private Duration segmentLease = Duration.ofMinutes(10);
+}
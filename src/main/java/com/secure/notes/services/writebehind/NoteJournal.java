@@ -0,0 +1,249 @@
+package com.secure.notes.services.writebehind;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of note writes, split into numbered segment files. A segment can be
+ * deleted once every write in it is in the database. Each record is framed as
+ * {@code length, crc32, payload}; replay stops at the first torn or corrupt record, which
+ * can only be the tail of the last segment after a crash.
+ */
+class NoteJournal implements AutoCloseable {
+
+    private static final String PREFIX = "notes-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    // Not monitors: a virtual thread blocked on one pins its carrier (JDK 23 and earlier), and the
+    // write-behind path waits on these from request threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private FileChannel channel;
+    private long segment;
+    private long sequence;
+
+    // Guarded by syncLock: bytes of the current segment already forced to disk
+    private long syncedSegment = -1;
+    private long syncedPosition;
+
+    NoteJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Path> existing = segments();
+        this.segment = existing.isEmpty() ? 0 : segmentNumber(existing.get(existing.size() - 1)) + 1;
+        open();
+    }
+
+    /**
+     * Replays every complete record of every segment, oldest first.
+     */
+    List<PendingNoteWrite> replay() throws IOException {
+        List<PendingNoteWrite> writes = new ArrayList<>();
+        for (Path path : segments()) {
+            if (segmentNumber(path) == segment) {
+                continue;
+            }
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+                readRecords(in, writes);
+            }
+        }
+        writes.forEach(write -> sequence = Math.max(sequence, write.sequence()));
+        return writes;
+    }
+
+    /**
+     * Guards the current segment; held across appending and registering the pending write
+     * so that both happen atomically with respect to {@link #rotate()}.
+     */
+    ReentrantLock lock() {
+        return lock;
+    }
+
+    /**
+     * Appends a write; the caller must hold {@link #lock()}.
+     * Returns the position to pass to {@link #sync}.
+     */
+    long append(long noteId, String ownerUsername, String content) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(content.length() + 64);
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeLong(++sequence);
+            out.writeLong(noteId);
+            out.writeUTF(ownerUsername);
+            byte[] body = content.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(body.length);
+            out.write(body);
+            byte[] bytes = payload.toByteArray();
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            ByteBuffer frame = ByteBuffer.allocate(8 + bytes.length);
+            frame.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            return channel.position();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to note journal", e);
+        }
+    }
+
+    long lastSequence() {
+        return sequence;
+    }
+
+    /**
+     * Blocks until everything up to {@code position} of the current segment is on disk.
+     * Concurrent callers share one {@code force}, which is what keeps fsync cost per write low.
+     */
+    void sync(long segmentAtAppend, long position) {
+        syncLock.lock();
+        try {
+            if (syncedSegment > segmentAtAppend || (syncedSegment == segmentAtAppend && syncedPosition >= position)) {
+                return;
+            }
+            FileChannel current;
+            long target;
+            lock.lock();
+            try {
+                current = channel;
+                target = current.position();
+                if (segment != segmentAtAppend) {
+                    // Rotated since the append, and rotation forces the old segment
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            // Forced outside the lock so appends continue meanwhile; a rotation can close the
+            // channel under us, but it forces the segment first, so the write is on disk either way
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                if (currentSegment() == segmentAtAppend) {
+                    throw e;
+                }
+            }
+            syncedSegment = segmentAtAppend;
+            syncedPosition = target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot sync note journal", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    long currentSegment() {
+        lock.lock();
+        try {
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one. The caller must hold {@link #lock()}.
+     * Returns the number of the segment that was closed.
+     */
+    long rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        long closed = segment;
+        segment++;
+        open();
+        return closed;
+    }
+
+    /**
+     * Deletes all closed segments up to and including {@code segmentNumber}.
+     */
+    void deleteUpTo(long segmentNumber) throws IOException {
+        for (Path path : segments()) {
+            if (segmentNumber(path) <= segmentNumber) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(directory.resolve(PREFIX + segment + SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(PREFIX)
+                            && path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)))
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static void readRecords(DataInputStream in, List<PendingNoteWrite> writes) throws IOException {
+        while (true) {
+            int length;
+            int checksum;
+            byte[] bytes;
+            try {
+                length = in.readInt();
+                checksum = in.readInt();
+                if (length < 0 || length > 64 * 1024 * 1024) {
+                    return;
+                }
+                bytes = in.readNBytes(length);
+            } catch (EOFException e) {
+                return;
+            }
+            if (bytes.length < length) {
+                return;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            if ((int) crc.getValue() != checksum) {
+                return;
+            }
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+            long sequence = record.readLong();
+            long noteId = record.readLong();
+            String owner = record.readUTF();
+            byte[] body = record.readNBytes(record.readInt());
+            writes.add(new PendingNoteWrite(sequence, noteId, owner, new String(body, StandardCharsets.UTF_8)));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.secure.notes.services.writebehind;
+
+/**
+ * Latest journalled content of a note that has not reached the database yet.
+ */
+public record PendingNoteWrite(long sequence, long noteId, String ownerUsername, String content) {
+}
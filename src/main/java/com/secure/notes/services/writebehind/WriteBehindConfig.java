@@ -0,0 +1,33 @@
+package com.secure.notes.services.writebehind;
+
+import com.secure.notes.cache.NoteList;
+import com.secure.notes.cache.TieredCache;
+import com.secure.notes.repositories.NoteRepository;
+import com.secure.notes.services.NoteRevisionService;
+import com.secure.notes.services.impl.NoteContentStore;
+import com.secure.notes.sharding.ShardRouter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties(WriteBehindProperties.class)
+@ConditionalOnProperty(name = "spring.app.notes.write-behind.enabled", havingValue = "true")
+public class WriteBehindConfig {
+
+    @Bean
+    public WriteBehindNoteWriter writeBehindNoteWriter(WriteBehindProperties properties,
+                                                       NoteRepository noteRepository,
+                                                       PlatformTransactionManager transactionManager,
+                                                       TieredCache<NoteList> noteListCache,
+                                                       NoteRevisionService noteRevisionService,
+                                                       NoteContentStore noteContentStore,
+                                                       ShardRouter shardRouter) {
+        return new WriteBehindNoteWriter(properties, noteRepository,
+                new TransactionTemplate(transactionManager), noteListCache, noteRevisionService,
+                noteContentStore, shardRouter);
+    }
+}
@@ -0,0 +1,274 @@
+package com.secure.notes.services.writebehind;
+
+import com.secure.notes.cache.NoteList;
+import com.secure.notes.cache.TieredCache;
+import com.secure.notes.models.Note;
+import com.secure.notes.repositories.NoteRepository;
+import com.secure.notes.services.NoteRevisionService;
+import com.secure.notes.services.impl.NoteContentStore;
+import com.secure.notes.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind mode for note updates. An update is acknowledged once it is forced to the
+ * local journal; a background flush then writes the latest content of every pending note
+ * to the database in batches, so a burst of autosaves for one note costs one UPDATE.
+ * Journal segments are only deleted after their writes are committed, and whatever is
+ * left in them is replayed on the next start. Waiting is done on locks rather than monitors,
+ * requests run on virtual threads and one blocked in a monitor pins its carrier (JDK 23 and
+ * earlier), so enough writers waiting for capacity would starve the flush that frees it.
+ */
+public class WriteBehindNoteWriter implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindNoteWriter.class);
+
+    private static final long BACK_PRESSURE_TIMEOUT_MS = 30_000;
+
+    private final WriteBehindProperties properties;
+    private final NoteRepository noteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TieredCache<NoteList> noteListCache;
+    private final NoteRevisionService noteRevisionService;
+    private final NoteContentStore noteContentStore;
+    private final ShardRouter shardRouter;
+    private final NoteJournal journal;
+
+    private final Map<Long, PendingNoteWrite> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock capacityLock = new ReentrantLock();
+    private final Condition capacityFreed = capacityLock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public WriteBehindNoteWriter(WriteBehindProperties properties, NoteRepository noteRepository,
+                                 TransactionTemplate transactionTemplate, TieredCache<NoteList> noteListCache,
+                                 NoteRevisionService noteRevisionService, NoteContentStore noteContentStore,
+                                 ShardRouter shardRouter) {
+        this.properties = properties;
+        this.noteRepository = noteRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.noteListCache = noteListCache;
+        this.noteRevisionService = noteRevisionService;
+        this.noteContentStore = noteContentStore;
+        this.shardRouter = shardRouter;
+        try {
+            this.journal = new NoteJournal(Path.of(properties.getJournalDirectory()));
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open note journal in " + properties.getJournalDirectory(), e);
+        }
+    }
+
+    /**
+     * Journals the new content and returns the note as it will be persisted.
+     */
+    public Note update(Note note, String content) {
+        awaitCapacity(note.getId());
+        long segment;
+        long position;
+        journal.lock().lock();
+        try {
+            position = journal.append(note.getId(), note.getOwnerUsername(), content);
+            segment = journal.currentSegment();
+            pending.put(note.getId(),
+                    new PendingNoteWrite(journal.lastSequence(), note.getId(), note.getOwnerUsername(), content));
+        } finally {
+            journal.lock().unlock();
+        }
+        journal.sync(segment, position);
+        return withContent(note, content);
+    }
+
+    /**
+     * Drops a pending write, for notes that are being deleted.
+     */
+    public void discard(Long noteId) {
+        pending.remove(noteId);
+    }
+
+    /**
+     * Returns the note with its not yet flushed content, so authors read their own writes.
+     */
+    public Note overlay(Note note) {
+        PendingNoteWrite write = pending.get(note.getId());
+        return write == null ? note : withContent(note, write.content());
+    }
+
+    public boolean hasPendingWrites() {
+        return !pending.isEmpty();
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.notes.write-behind.flush-interval-ms:2000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            long closedSegment;
+            List<PendingNoteWrite> batch;
+            journal.lock().lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                try {
+                    closedSegment = journal.rotate();
+                } catch (IOException e) {
+                    logger.error("Cannot rotate note journal, flush skipped", e);
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+            } finally {
+                journal.lock().unlock();
+            }
+
+            // Owners being moved to another shard are written once the move is done; their
+            // writes stay pending, and their journal segment is kept
+            Map<Boolean, List<PendingNoteWrite>> byMoving = batch.stream().collect(Collectors.partitioningBy(
+                    write -> shardRouter.isMoving(write.ownerUsername())));
+            List<PendingNoteWrite> deferred = byMoving.get(true);
+            batch = byMoving.get(false);
+
+            try {
+                // A transaction only spans one shard
+                Map<String, List<PendingNoteWrite>> byShard = batch.stream().collect(Collectors.groupingBy(
+                        write -> Objects.toString(shardRouter.shardFor(write.ownerUsername()), "")));
+                for (List<PendingNoteWrite> shardBatch : byShard.values()) {
+                    shardRouter.runFor(shardBatch.getFirst().ownerUsername(), () -> {
+                        for (int from = 0; from < shardBatch.size(); from += properties.getBatchSize()) {
+                            List<PendingNoteWrite> chunk = shardBatch.subList(from,
+                                    Math.min(from + properties.getBatchSize(), shardBatch.size()));
+                            transactionTemplate.executeWithoutResult(status -> writeChunk(chunk));
+                        }
+                    });
+                }
+            } catch (RuntimeException e) {
+                // Everything stays pending and journalled, the next flush retries the whole batch
+                logger.error("Flushing {} journalled note writes failed", batch.size(), e);
+                return;
+            }
+
+            Set<String> owners = new HashSet<>();
+            for (PendingNoteWrite write : batch) {
+                // Keeps writes that arrived during the flush, they are in the new segment
+                pending.remove(write.noteId(), write);
+                owners.add(write.ownerUsername());
+            }
+            owners.forEach(noteListCache::evict);
+            if (!deferred.isEmpty()) {
+                logger.info("Held back {} journalled note writes of owners being moved between shards",
+                        deferred.size());
+            } else {
+                try {
+                    journal.deleteUpTo(closedSegment);
+                } catch (IOException e) {
+                    logger.warn("Cannot delete flushed journal segments, they will be replayed harmlessly", e);
+                }
+            }
+            capacityLock.lock();
+            try {
+                capacityFreed.signalAll();
+            } finally {
+                capacityLock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Writes replayed from the journal go to the database once the context is up, and with it the
+    // shard directory; from the constructor, owners pinned to another shard would be written to the
+    // one the hash ring names. A failing replay is logged and retried by the scheduled flush.
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!pending.isEmpty()) {
+            logger.info("Replaying {} journalled note writes", pending.size());
+            flush();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    // Journalled writes are pending, and overlaid on reads, from the start; the journal's sequence
+    // continues after them
+    private void load() {
+        List<PendingNoteWrite> writes;
+        try {
+            writes = journal.replay();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay note journal", e);
+        }
+        for (PendingNoteWrite write : writes) {
+            pending.merge(write.noteId(), write,
+                    (current, replayed) -> replayed.sequence() > current.sequence() ? replayed : current);
+        }
+    }
+
+    private void writeChunk(List<PendingNoteWrite> chunk) {
+        Map<Long, PendingNoteWrite> byId = chunk.stream()
+                .collect(Collectors.toMap(PendingNoteWrite::noteId, Function.identity()));
+        // Notes deleted in the meantime are simply not found
+        // Locked like any content update, other nodes may be writing the same notes' revisions
+        List<Note> notes = noteContentStore.hydrate(noteRepository.findAllForUpdate(byId.keySet()));
+        for (Note note : notes) {
+            String previousContent = note.getContent();
+            noteContentStore.assign(note, byId.get(note.getId()).content());
+            // Only the flushed state becomes a revision, journalled intermediates are coalesced away
+            noteRevisionService.recordRevision(note, previousContent);
+        }
+        noteRepository.saveAll(notes);
+    }
+
+    private void awaitCapacity(Long noteId) {
+        if (pending.size() < properties.getMaxPendingNotes() || pending.containsKey(noteId)) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BACK_PRESSURE_TIMEOUT_MS);
+        capacityLock.lock();
+        try {
+            while (pending.size() >= properties.getMaxPendingNotes()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new RuntimeException("Note write queue is full, try again later");
+                }
+                capacityFreed.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the note write queue", e);
+        } finally {
+            capacityLock.unlock();
+        }
+    }
+
+    private static Note withContent(Note note, String content) {
+        Note copy = new Note();
+        copy.setId(note.getId());
+        copy.setOwnerUsername(note.getOwnerUsername());
+        copy.setFolder(note.getFolder());
+        copy.setTags(note.getTags());
+        copy.setContent(content);
+        return copy;
+    }
+}
@@ -0,0 +1,21 @@
+package com.secure.notes.services.writebehind;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "spring.app.notes.write-behind")
+public class WriteBehindProperties {
+
+    private boolean enabled = false;
+
+    private String journalDirectory = "data/journal";
+
+    // Coalescing window: updates to the same note within one interval become one database write
+    private long flushIntervalMs = 2000;
+
+    private int batchSize = 200;
+
+    // Writers block once this many notes are waiting to be flushed
+    private int maxPendingNotes = 10_000;
+}
@@ -0,0 +1,65 @@
+package com.secure.notes.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Cluster-wide lock for background work that changes owner data on the shards: segment tiering
+ * and compaction, revision compaction, key rotation and shard rebalancing. None of them runs
+ * while another one holds it, on any node, so a rebalance never copies rows a job is still
+ * changing. A row in maintenance_locks on the home database; a lock whose holder died is taken
+ * over once its timeout has passed. Taking and releasing it commit on their own, the pool
+ * may have auto-commit off and would roll back an update made outside a transaction.
+ */
+public class MaintenanceLock {
+    private static final Logger logger = LoggerFactory.getLogger(MaintenanceLock.class);
+
+    private static final String NAME = "owner-data";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final Duration timeout;
+
+    public MaintenanceLock(DataSource dataSource, ShardRouter shardRouter, Duration timeout) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.shardRouter = shardRouter;
+        this.timeout = timeout;
+    }
+
+    // False, without running the work, while the lock is held elsewhere
+    public boolean runExclusively(String job, Runnable work) {
+        String holder = job + "@" + UUID.randomUUID();
+        Timestamp now = Timestamp.from(Instant.now());
+        boolean locked = update("update maintenance_locks set holder = ?, locked_until = ? " +
+                        "where name = ? and (locked_until is null or locked_until < ?)",
+                holder, Timestamp.from(Instant.now().plus(timeout)), NAME, now) == 1;
+        if (!locked) {
+            logger.info("Skipped {}, other maintenance is changing note data", job);
+            return false;
+        }
+        try {
+            work.run();
+            return true;
+        } finally {
+            update("update maintenance_locks set holder = null, locked_until = null where name = ? and holder = ?",
+                    NAME, holder);
+        }
+    }
+
+    private int update(String sql, Object... args) {
+        return shardRouter.callOnHome(() -> transactionTemplate.execute(status -> jdbcTemplate.update(sql, args)));
+    }
+}
@@ -0,0 +1,12 @@
+package com.secure.notes.sharding;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Writes are refused for the few seconds an owner's notes take to move between shards
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OwnerMovingException extends RuntimeException {
+    public OwnerMovingException(String owner) {
+        super("Notes of " + owner + " are being moved, retry shortly");
+    }
+}
@@ -0,0 +1,54 @@
+package com.secure.notes.sharding;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Set;
+
+/**
+ * Routes a note request to the authenticated owner's shard before any transaction starts,
+ * so every repository call made while handling it, NoteRepository and the other owner-scoped
+ * tables alike, uses that shard's connection.
+ * <p>
+ * Only registered for /api/notes/**, and the move check runs once per request. Owner-scoped
+ * work anywhere else (admin endpoints, background jobs) and requests writing for longer than
+ * the rebalancer's move grace (imports) must route themselves with
+ * {@link ShardRouter#callForWrite}.
+ */
+class OwnerShardInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ShardRouter shardRouter;
+
+    OwnerShardInterceptor(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            String owner = authentication.getName();
+            ShardContext.set(READ_METHODS.contains(request.getMethod())
+                    ? shardRouter.shardFor(owner) : shardRouter.shardForWrite(owner));
+        }
+        return true;
+    }
+
+    // Streamed responses continue on another thread and route themselves
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ShardContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ShardContext.clear();
+    }
+}
@@ -0,0 +1,53 @@
+package com.secure.notes.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard the current thread's database work goes to. Set per request by
+ * {@link OwnerShardInterceptor} and around background work by {@link ShardRouter}; with no
+ * shard set, connections come from the home shard.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T callOn(String shard, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void runOn(String shard, Runnable work) {
+        callOn(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    static void set(String shard) {
+        CURRENT.set(shard);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    private static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
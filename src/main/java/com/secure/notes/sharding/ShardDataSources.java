@@ -0,0 +1,46 @@
+package com.secure.notes.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// One pool per configured shard; deliberately not beans, the routing DataSource is the only one
+public class ShardDataSources implements DisposableBean {
+
+    private final Map<String, DataSource> dataSources;
+
+    public ShardDataSources(Map<String, DataSource> dataSources) {
+        this.dataSources = Collections.unmodifiableMap(new LinkedHashMap<>(dataSources));
+    }
+
+    public Set<String> names() {
+        return dataSources.keySet();
+    }
+
+    public DataSource get(String shard) {
+        DataSource dataSource = dataSources.get(shard);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard " + shard);
+        }
+        return dataSource;
+    }
+
+    Map<String, DataSource> asMap() {
+        return dataSources;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
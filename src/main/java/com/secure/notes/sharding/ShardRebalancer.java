@@ -0,0 +1,286 @@
+package com.secure.notes.sharding;
+
+import com.secure.notes.cache.NoteList;
+import com.secure.notes.cache.TieredCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSetMetaData;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Online rebalancing: moves every owner whose target shard (see {@link ShardRouter#targetShardFor})
+ * differs from the shard holding their rows. Owners move in batches: writes to the batch are
+ * refused while its rows are copied in one transaction on the target, then the owners are
+ * pinned to the target and their rows deleted from the source. Reads keep working throughout.
+ * Safe to re-run after a failure; an owner is only ever readable from one shard.
+ * <p>
+ * Writes are kept off the source by every path that makes them: note requests are refused
+ * through {@link ShardRouter#shardForWrite}, the write-behind flush of every node holds back
+ * moving owners, and background jobs changing owner data share the {@link MaintenanceLock}
+ * held for the whole run. Row counts are compared before the source rows are deleted.
+ */
+public class ShardRebalancer {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final int OWNER_BATCH = 100;
+    private static final int INSERT_BATCH = 500;
+
+    // Owner-scoped tables besides note and note_blobs, with the condition selecting an owner's rows
+    private static final Map<String, String> OWNER_TABLES = Map.of(
+            "user_data_keys", "owner_username = ?",
+            "note_revisions", "note_id in (select id from note where owner_username = ?)",
+            "note_imports", "owner_username = ?",
+            "note_shares", "owner_username = ?",
+            "note_tags", "owner_username = ?",
+            "note_facet_counts", "owner_username = ?");
+
+    public record Status(boolean running, Instant startedAt, Instant finishedAt, int movedOwners,
+                         int failedOwners, String lastError) {
+    }
+
+    private final ShardRouter shardRouter;
+    private final ShardDataSources dataSources;
+    private final Duration moveGrace;
+    private final MaintenanceLock maintenanceLock;
+    private final TieredCache<NoteList> noteListCache;
+    private volatile Status progress = new Status(false, null, null, 0, 0, null);
+
+    public ShardRebalancer(ShardingProperties properties, ShardRouter shardRouter, ShardDataSources dataSources,
+                           MaintenanceLock maintenanceLock, TieredCache<NoteList> noteListCache) {
+        this.shardRouter = shardRouter;
+        this.dataSources = dataSources;
+        this.moveGrace = properties.getMoveGrace();
+        this.maintenanceLock = maintenanceLock;
+        this.noteListCache = noteListCache;
+    }
+
+    public Status status() {
+        return progress;
+    }
+
+    // Runs in the background, returns at once; a second call while running is ignored
+    public synchronized Status start() {
+        if (!progress.running()) {
+            progress = new Status(true, Instant.now(), null, 0, 0, null);
+            Thread.ofVirtual().name("shard-rebalancer").start(this::rebalance);
+        }
+        return progress;
+    }
+
+    public Status rebalance() {
+        Instant startedAt = Instant.now();
+        if (!maintenanceLock.runExclusively("shard rebalancing", () -> rebalance(startedAt))) {
+            progress = new Status(false, startedAt, Instant.now(), 0, 0,
+                    "Other maintenance is changing note data, retry later");
+        }
+        return progress;
+    }
+
+    private void rebalance(Instant startedAt) {
+        int moved = 0;
+        int failed = 0;
+        String lastError = null;
+        shardRouter.unpinSettled();
+        for (String shard : dataSources.names()) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSources.get(shard));
+            String after = "";
+            List<String> owners;
+            do {
+                owners = jdbc.queryForList("select owner_username from (select owner_username from note "
+                        + "union select owner_username from user_data_keys "
+                        + "union select owner_username from note_imports) o "
+                        + "where owner_username > ? order by owner_username limit " + OWNER_BATCH, String.class, after);
+                Map<String, List<String>> byTarget = new LinkedHashMap<>();
+                for (String owner : owners) {
+                    String current = shardRouter.shardFor(owner);
+                    if (!shard.equals(current)) {
+                        if (shardRouter.isMoving(owner) && current.equals(shardRouter.targetShardFor(owner))) {
+                            // Already moved, but the source changed after the copy, see moveOwners
+                            logger.warn("Owner {} has rows on {} left for reconciliation with {}, left alone",
+                                    owner, shard, current);
+                        } else if (current.equals(shardRouter.pinnedShard(owner))) {
+                            // A move whose cleanup failed: the owner is served from the pinned shard
+                            deleteOwner(dataSources.get(shard), owner);
+                            logger.info("Removed leftover rows of {} from shard {}", owner, shard);
+                        } else {
+                            // Nodes disagree about the ring; never delete what may be the only copy
+                            logger.warn("Owner {} has rows on {} but is routed to {}, left alone",
+                                    owner, shard, current);
+                        }
+                    } else if (!shard.equals(shardRouter.targetShardFor(owner))) {
+                        byTarget.computeIfAbsent(shardRouter.targetShardFor(owner), target -> new ArrayList<>())
+                                .add(owner);
+                    }
+                }
+                for (Map.Entry<String, List<String>> batch : byTarget.entrySet()) {
+                    try {
+                        moveOwners(batch.getValue(), shard, batch.getKey());
+                        moved += batch.getValue().size();
+                    } catch (RuntimeException e) {
+                        failed += batch.getValue().size();
+                        lastError = e.getMessage();
+                        logger.error("Moving {} owners from {} to {} failed", batch.getValue().size(), shard,
+                                batch.getKey(), e);
+                    }
+                    progress = new Status(true, startedAt, null, moved, failed, lastError);
+                }
+                if (!owners.isEmpty()) {
+                    after = owners.getLast();
+                }
+            } while (owners.size() == OWNER_BATCH);
+        }
+        progress = new Status(false, startedAt, Instant.now(), moved, failed, lastError);
+        logger.info("Shard rebalancing finished: {} owners moved, {} failed", moved, failed);
+    }
+
+    void moveOwners(List<String> owners, String source, String target) {
+        DataSource sourceDataSource = dataSources.get(source);
+        DataSource targetDataSource = dataSources.get(target);
+        Map<String, Map<String, Integer>> copied = new LinkedHashMap<>();
+        owners.forEach(owner -> shardRouter.pin(owner, source, true));
+        try {
+            // Lets writes already past the routing check finish; journalled writes of these owners
+            // are held back by every node's write-behind flush until the move is done
+            pause();
+            new TransactionTemplate(new DataSourceTransactionManager(targetDataSource)).executeWithoutResult(
+                    status -> owners.forEach(owner -> {
+                        copyOwner(sourceDataSource, targetDataSource, owner);
+                        Map<String, Integer> counts = rowCounts(sourceDataSource, owner);
+                        if (!counts.equals(rowCounts(targetDataSource, owner))) {
+                            throw new RuntimeException("Copy of " + owner + " to " + target + " is incomplete");
+                        }
+                        copied.put(owner, counts);
+                    }));
+        } catch (RuntimeException e) {
+            owners.forEach(owner -> shardRouter.pin(owner, source, false));
+            throw e;
+        }
+        owners.forEach(owner -> shardRouter.pin(owner, target, false));
+        owners.forEach(noteListCache::evict);
+        // Nodes that have not seen the new pins yet still read from the source
+        pause();
+        List<String> changed = new ArrayList<>();
+        for (String owner : owners) {
+            if (rowCounts(sourceDataSource, owner).equals(copied.get(owner))) {
+                deleteOwner(sourceDataSource, owner);
+            } else {
+                // Something wrote to the source after the copy; keep both copies and the owner's
+                // writes refused until an operator has reconciled them and cleared the pin
+                shardRouter.pin(owner, target, true);
+                changed.add(owner);
+            }
+        }
+        if (!changed.isEmpty()) {
+            throw new RuntimeException("Rows of " + changed + " changed on " + source
+                    + " after being copied to " + target + ", left on both shards for reconciliation");
+        }
+    }
+
+    // Rows per owner-scoped table; the target runs this inside the copy transaction and sees the copy
+    private static Map<String, Integer> rowCounts(DataSource dataSource, String owner) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("note", jdbc.queryForObject("select count(*) from note where owner_username = ?",
+                Integer.class, owner));
+        OWNER_TABLES.forEach((table, condition) -> counts.put(table,
+                jdbc.queryForObject("select count(*) from " + table + " where " + condition, Integer.class, owner)));
+        return counts;
+    }
+
+    private void copyOwner(DataSource source, DataSource target, String owner) {
+        JdbcTemplate from = new JdbcTemplate(source);
+        JdbcTemplate to = new JdbcTemplate(target);
+        copyRows(from, to, "user_data_keys", OWNER_TABLES.get("user_data_keys"), Map.of(), owner);
+        // A blob may already be on the target when it is shared with an owner moved earlier
+        blobReferences(from, owner).forEach((hash, references) -> {
+            if (to.update("update note_blobs set ref_count = ref_count + ? where hash = ?", references, hash) == 0) {
+                copyRows(from, to, "note_blobs", "hash = ?", Map.<String, Object>of("ref_count", references), hash);
+            }
+        });
+        copyRows(from, to, "note", "owner_username = ?", Map.of(), owner);
+        copyRows(from, to, "note_revisions", OWNER_TABLES.get("note_revisions"), Map.of(), owner);
+        copyRows(from, to, "note_imports", OWNER_TABLES.get("note_imports"), Map.of(), owner);
+        copyRows(from, to, "note_shares", OWNER_TABLES.get("note_shares"), Map.of(), owner);
+        copyRows(from, to, "note_tags", OWNER_TABLES.get("note_tags"), Map.of(), owner);
+        copyRows(from, to, "note_facet_counts", OWNER_TABLES.get("note_facet_counts"), Map.of(), owner);
+    }
+
+    private void deleteOwner(DataSource dataSource, String owner) {
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            Map<String, Integer> references = blobReferences(jdbc, owner);
+            jdbc.update("delete from note_revisions where " + OWNER_TABLES.get("note_revisions"), owner);
+            jdbc.update("delete from note where owner_username = ?", owner);
+            jdbc.update("delete from note_imports where owner_username = ?", owner);
+            jdbc.update("delete from note_shares where owner_username = ?", owner);
+            jdbc.update("delete from note_tags where owner_username = ?", owner);
+            jdbc.update("delete from note_facet_counts where owner_username = ?", owner);
+            jdbc.update("delete from user_data_keys where owner_username = ?", owner);
+            // Unreferenced blobs are deleted by the regular garbage collection
+            references.forEach((hash, count) ->
+                    jdbc.update("update note_blobs set ref_count = ref_count - ? where hash = ?", count, hash));
+        });
+    }
+
+    private static Map<String, Integer> blobReferences(JdbcTemplate jdbc, String owner) {
+        Map<String, Integer> references = new LinkedHashMap<>();
+        jdbc.query("select content_hash, count(*) from note where owner_username = ? and content_hash is not null "
+                + "group by content_hash", rs -> {
+            references.put(rs.getString(1), rs.getInt(2));
+        }, owner);
+        return references;
+    }
+
+    // Copies rows column for column, with the given columns overridden
+    private static void copyRows(JdbcTemplate from, JdbcTemplate to, String table, String condition,
+                                 Map<String, Object> overrides, Object argument) {
+        List<String> columns = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        from.query("select * from " + table + " where " + condition, rs -> {
+            ResultSetMetaData metaData = rs.getMetaData();
+            if (columns.isEmpty()) {
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    columns.add(metaData.getColumnLabel(i).toLowerCase());
+                }
+            }
+            Object[] row = new Object[columns.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = overrides.containsKey(columns.get(i)) ? overrides.get(columns.get(i)) : rs.getObject(i + 1);
+            }
+            rows.add(row);
+            if (rows.size() == INSERT_BATCH) {
+                insert(to, table, columns, rows);
+                rows.clear();
+            }
+        }, argument);
+        if (!rows.isEmpty()) {
+            insert(to, table, columns, rows);
+        }
+    }
+
+    private static void insert(JdbcTemplate to, String table, List<String> columns, List<Object[]> rows) {
+        String placeholders = String.join(", ", Collections.nCopies(columns.size(), "?"));
+        to.batchUpdate("insert into " + table + " (" + String.join(", ", columns) + ") values (" + placeholders + ")",
+                rows);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(moveGrace);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while moving owners", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.secure.notes.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring over shard names. Each shard owns {@code virtualNodes} points and an
+ * owner belongs to the first point at or after its hash, so adding or removing one shard only
+ * moves the owners of the ring segments it gains or loses.
+ */
+public final class ShardRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    public ShardRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("A shard ring needs at least one shard");
+        }
+        for (String shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public String shardFor(String owner) {
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(owner));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    // FNV-1a over the UTF-8 bytes with a murmur3 finalizer; stable across JVMs and releases,
+    // unlike String.hashCode, and well spread for short similar keys
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
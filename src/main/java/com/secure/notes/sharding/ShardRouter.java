@@ -0,0 +1,205 @@
+package com.secure.notes.sharding;
+
+import com.secure.notes.cache.SharedCacheStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Maps note owners to shards: the owner directory first (owners pinned while or after being
+ * moved by {@link ShardRebalancer}), the consistent hash ring otherwise. The directory is a
+ * small table on the home shard, held in memory and reloaded on change notifications or
+ * periodically, so routing never queries the database. With sharding disabled there is a
+ * single unnamed shard and every method runs its work unchanged.
+ */
+public class ShardRouter implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+    private static final String DIRECTORY_CHANNEL = "notes:shards";
+
+    private record Placement(String shard, boolean moving) {
+    }
+
+    private final List<String> shards;
+    private final ShardRing ring;
+    private final ShardRing targetRing;
+    private final String homeShard;
+    private final JdbcTemplate home;
+    // Shard pools share the primary's settings, auto-commit=false in prod, so directory writes commit explicitly
+    private final TransactionTemplate homeTransactions;
+    private final SharedCacheStore sharedStore;
+    private volatile Map<String, Placement> directory = Map.of();
+
+    // Sharding disabled
+    public ShardRouter() {
+        this.shards = null;
+        this.ring = null;
+        this.targetRing = null;
+        this.homeShard = null;
+        this.home = null;
+        this.homeTransactions = null;
+        this.sharedStore = null;
+    }
+
+    public ShardRouter(ShardingProperties properties, ShardDataSources dataSources, SharedCacheStore sharedStore) {
+        this.shards = List.copyOf(dataSources.names());
+        this.ring = new ShardRing(properties.getShards().stream()
+                .filter(shard -> shard.getState() != ShardingProperties.ShardState.JOINING)
+                .map(ShardingProperties.Shard::getName).toList(), properties.getVirtualNodes());
+        this.targetRing = new ShardRing(properties.getShards().stream()
+                .filter(shard -> shard.getState() != ShardingProperties.ShardState.DRAINING)
+                .map(ShardingProperties.Shard::getName).toList(), properties.getVirtualNodes());
+        this.homeShard = properties.resolveHome();
+        this.home = new JdbcTemplate(dataSources.get(homeShard));
+        this.homeTransactions = new TransactionTemplate(new DataSourceTransactionManager(dataSources.get(homeShard)));
+        this.sharedStore = sharedStore;
+    }
+
+    // After every singleton, including the Flyway migration creating owner_shards
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isEnabled()) {
+            return;
+        }
+        reloadDirectory();
+        if (sharedStore != null) {
+            sharedStore.subscribe(DIRECTORY_CHANNEL, message -> reloadDirectory());
+        }
+    }
+
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    public String shardFor(String owner) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Placement placement = directory.get(owner);
+        return placement != null ? placement.shard() : ring.shardFor(owner);
+    }
+
+    // As shardFor, but refuses owners in the middle of a move
+    public String shardForWrite(String owner) {
+        Placement placement = directory.get(owner);
+        if (placement != null && placement.moving()) {
+            throw new OwnerMovingException(owner);
+        }
+        return shardFor(owner);
+    }
+
+    // Writes to the owner are refused until the move finishes; background writers hold them back
+    public boolean isMoving(String owner) {
+        Placement placement = directory.get(owner);
+        return placement != null && placement.moving();
+    }
+
+    // Null for owners routed by the ring alone
+    String pinnedShard(String owner) {
+        Placement placement = directory.get(owner);
+        return placement != null ? placement.shard() : null;
+    }
+
+    // Where the owner belongs once joining shards are in the ring and draining ones are gone
+    public String targetShardFor(String owner) {
+        return isEnabled() ? targetRing.shardFor(owner) : null;
+    }
+
+    public List<String> shards() {
+        return isEnabled() ? shards : Collections.singletonList(null);
+    }
+
+    public <T> T callFor(String owner, Supplier<T> work) {
+        return isEnabled() ? ShardContext.callOn(shardFor(owner), work) : work.get();
+    }
+
+    // For writes to another owner's notes, which the request's own routing did not check
+    public <T> T callForWrite(String owner, Supplier<T> work) {
+        return isEnabled() ? ShardContext.callOn(shardForWrite(owner), work) : work.get();
+    }
+
+    // Global tables (users, tokens) from code running on an owner's shard; not inside its transactions
+    public <T> T callOnHome(Supplier<T> work) {
+        return isEnabled() ? ShardContext.callOn(homeShard, work) : work.get();
+    }
+
+    public void runFor(String owner, Runnable work) {
+        if (isEnabled()) {
+            ShardContext.runOn(shardFor(owner), work);
+        } else {
+            work.run();
+        }
+    }
+
+    // Background jobs that scan owner data run once per shard
+    public void forEachShard(Runnable work) {
+        if (!isEnabled()) {
+            work.run();
+            return;
+        }
+        for (String shard : shards) {
+            ShardContext.runOn(shard, work);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.sharding.directory-refresh-interval:5s}")
+    public void reloadDirectory() {
+        if (!isEnabled()) {
+            return;
+        }
+        Map<String, Placement> loaded = new HashMap<>();
+        home.query("select owner_username, shard, moving from owner_shards", rs -> {
+            loaded.put(rs.getString(1), new Placement(rs.getString(2), rs.getBoolean(3)));
+        });
+        directory = Map.copyOf(loaded);
+    }
+
+    void pin(String owner, String shard, boolean moving) {
+        homeTransactions.executeWithoutResult(status -> {
+            if (home.update("update owner_shards set shard = ?, moving = ? where owner_username = ?",
+                    shard, moving, owner) == 0) {
+                home.update("insert into owner_shards (owner_username, shard, moving) values (?, ?, ?)",
+                        owner, shard, moving);
+            }
+        });
+        directoryChanged();
+    }
+
+    // Drops pins the current ring agrees with, left behind once joining shards became active
+    int unpinSettled() {
+        int removed = 0;
+        for (Map.Entry<String, Placement> entry : directory.entrySet()) {
+            Placement placement = entry.getValue();
+            if (!placement.moving() && placement.shard().equals(ring.shardFor(entry.getKey()))) {
+                removed += homeTransactions.execute(status -> home.update(
+                        "delete from owner_shards where owner_username = ? and moving = false", entry.getKey()));
+            }
+        }
+        if (removed > 0) {
+            directoryChanged();
+        }
+        return removed;
+    }
+
+    private void directoryChanged() {
+        reloadDirectory();
+        if (sharedStore != null) {
+            try {
+                sharedStore.publish(DIRECTORY_CHANNEL, "changed");
+            } catch (RuntimeException e) {
+                logger.warn("Could not broadcast a shard directory change, other nodes reload it periodically: {}",
+                        e.getMessage());
+            }
+        }
+    }
+}
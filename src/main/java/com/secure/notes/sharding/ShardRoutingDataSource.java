@@ -0,0 +1,13 @@
+package com.secure.notes.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+// Wrapped in a LazyConnectionDataSourceProxy, so the shard is picked at the first statement
+// of a transaction, not when it begins
+class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,125 @@
+package com.secure.notes.sharding;
+
+import com.secure.notes.cache.NoteList;
+import com.secure.notes.cache.SharedCacheStore;
+import com.secure.notes.cache.TieredCache;
+import com.secure.notes.datasource.NodeDataSources;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    // Always present so jobs and services can route unconditionally; a no-op when disabled
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties,
+                                   ObjectProvider<ShardDataSources> shardDataSources,
+                                   ObjectProvider<SharedCacheStore> sharedStore) {
+        ShardDataSources dataSources = shardDataSources.getIfAvailable();
+        return dataSources == null ? new ShardRouter()
+                : new ShardRouter(properties, dataSources, sharedStore.getIfAvailable());
+    }
+
+    @Bean
+    public MaintenanceLock maintenanceLock(DataSource dataSource, ShardRouter shardRouter,
+                                           @Value("${spring.app.maintenance.lock-timeout:6h}") Duration timeout) {
+        return new MaintenanceLock(dataSource, shardRouter, timeout);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "spring.app.sharding.enabled", havingValue = "true")
+    static class Enabled {
+
+        // Both replace the primary DataSource, and shards have no replicas to route to
+        Enabled(@Value("${spring.app.datasource.replica.enabled:false}") boolean replicasEnabled) {
+            if (replicasEnabled) {
+                throw new IllegalStateException("spring.app.sharding.enabled cannot be combined with "
+                        + "spring.app.datasource.replica.enabled, turn read replicas off when sharding");
+            }
+        }
+
+        // Shard pools take over the primary's spring.datasource.hikari.* settings and URL parameters;
+        // with auto-commit=false in prod, Hibernate relies on the pool to not auto-commit
+        @Bean
+        public ShardDataSources shardDataSources(ShardingProperties properties, Environment environment) {
+            Binder binder = Binder.get(environment);
+            Map<String, DataSource> dataSources = new LinkedHashMap<>();
+            for (ShardingProperties.Shard shard : properties.getShards()) {
+                dataSources.put(shard.getName(), NodeDataSources.create(binder, "shard-" + shard.getName(),
+                        shard.getUrl(), shard.getUsername(), shard.getPassword()));
+            }
+            return new ShardDataSources(dataSources);
+        }
+
+        // Replaces the auto-configured DataSource: JPA and everything else go through the router
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardDataSources shardDataSources, ShardingProperties properties) {
+            ShardRoutingDataSource routing = new ShardRoutingDataSource();
+            routing.setTargetDataSources(new HashMap<>(shardDataSources.asMap()));
+            routing.setDefaultTargetDataSource(shardDataSources.get(properties.resolveHome()));
+            // An unknown shard name is a bug, not a reason to write to the home shard
+            routing.setLenientFallback(false);
+            routing.afterPropertiesSet();
+            return new LazyConnectionDataSourceProxy(routing);
+        }
+
+        // Every shard gets the full schema; ids are drawn from a range per shard, see V12
+        @Bean
+        public FlywayMigrationStrategy shardMigrations(ShardingProperties properties,
+                                                       ShardDataSources shardDataSources) {
+            return flyway -> {
+                for (ShardingProperties.Shard shard : properties.getShards()) {
+                    Map<String, String> placeholders = new HashMap<>(flyway.getConfiguration().getPlaceholders());
+                    placeholders.put("shard_id_base", String.valueOf(Math.max(1L, (long) shard.getId() << 40)));
+                    Flyway.configure()
+                            .configuration(flyway.getConfiguration())
+                            .dataSource(shardDataSources.get(shard.getName()))
+                            .placeholders(placeholders)
+                            .load()
+                            .migrate();
+                }
+            };
+        }
+
+        // Only the note API; owner-scoped work elsewhere, and long requests that write in several
+        // transactions such as imports, route themselves through ShardRouter.callForWrite
+        @Bean
+        public WebMvcConfigurer ownerShardRouting(ShardRouter shardRouter) {
+            return new WebMvcConfigurer() {
+                @Override
+                public void addInterceptors(InterceptorRegistry registry) {
+                    registry.addInterceptor(new OwnerShardInterceptor(shardRouter)).addPathPatterns("/api/notes/**");
+                }
+            };
+        }
+
+        @Bean
+        public ShardRebalancer shardRebalancer(ShardingProperties properties,
+                                               ShardRouter shardRouter,
+                                               ShardDataSources shardDataSources,
+                                               MaintenanceLock maintenanceLock,
+                                               TieredCache<NoteList> noteListCache) {
+            return new ShardRebalancer(properties, shardRouter, shardDataSources, maintenanceLock, noteListCache);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.secure.notes.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "spring.app.sharding")
+public class ShardingProperties {
+
+    // Off: the single spring.datasource is used and none of this applies
+    private boolean enabled = false;
+
+    // Shard holding everything that is not owned by a note owner (users, tokens, audit, shard directory)
+    private String home;
+
+    // Points per shard on the hash ring; more points, more even spread
+    private int virtualNodes = 160;
+
+    // How often nodes reload the owner directory when no shared store broadcasts changes
+    private Duration directoryRefreshInterval = Duration.ofSeconds(5);
+
+    // Writes of an owner being moved are refused for this long before and after the copy,
+    // enough for every node to see the directory change; must exceed directory-refresh-interval
+    private Duration moveGrace = Duration.ofSeconds(10);
+
+    private List<Shard> shards = new ArrayList<>();
+
+    public String resolveHome() {
+        if (home != null) {
+            return home;
+        }
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("spring.app.sharding.shards is empty");
+        }
+        return shards.get(0).getName();
+    }
+
+    public enum ShardState {
+        // In the ring
+        ACTIVE,
+        // Configured but not yet in the ring: the rebalancer moves its future owners onto it
+        JOINING,
+        // Still in the ring, the rebalancer moves its owners elsewhere
+        DRAINING
+    }
+
+    @Data
+    public static class Shard {
+        private String name;
+        // Stable number of the shard, fixes the range its auto-increment ids are taken from
+        private int id;
+        private String url;
+        private String username;
+        private String password;
+        private ShardState state = ShardState.ACTIVE;
+    }
+}
@@ -0,0 +1,48 @@
+package com.secure.notes.util;
+
+/**
+ * Single-region text diff: the common prefix and suffix of two versions are kept and only
+ * the changed middle is stored. Edits made between two autosaves almost always touch one
+ * region, so this stays close to the size of the edit while being O(n) to compute and apply.
+ * Encoded as {@code prefixLength,removedLength,insertedText}.
+ */
+public final class TextDelta {
+
+    private TextDelta() {
+    }
+
+    public static String diff(String from, String to) {
+        int max = Math.min(from.length(), to.length());
+        int prefix = 0;
+        while (prefix < max && from.charAt(prefix) == to.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) {
+            suffix++;
+        }
+        // Never cut a surrogate pair: the stored insert would start or end with half a code point
+        if (prefix > 0 && Character.isHighSurrogate(from.charAt(prefix - 1))) {
+            prefix--;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(from.charAt(from.length() - suffix))) {
+            suffix--;
+        }
+        int removed = from.length() - prefix - suffix;
+        String inserted = to.substring(prefix, to.length() - suffix);
+        return prefix + "," + removed + "," + inserted;
+    }
+
+    public static String apply(String base, String delta) {
+        int first = delta.indexOf(',');
+        int second = delta.indexOf(',', first + 1);
+        if (first < 0 || second < 0) {
+            throw new IllegalArgumentException("Malformed delta");
+        }
+        int prefix = Integer.parseInt(delta, 0, first, 10);
+        int removed = Integer.parseInt(delta, first + 1, second, 10);
+        String inserted = delta.substring(second + 1);
+        return base.substring(0, prefix) + inserted + base.substring(prefix + removed);
+    }
+}
@@ -0,0 +1,2 @@
+create index idx_users_account_expiry on users (account_non_expired, account_expiry_date);
+create index idx_users_credentials_expiry on users (credentials_non_expired, credentials_expiry_date);
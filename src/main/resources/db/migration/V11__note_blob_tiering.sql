@@ -0,0 +1,12 @@
+alter table note_blobs
+    add column touched_date    datetime(6),
+    add column segment_id      integer,
+    add column segment_offset  bigint,
+    add column segment_length  integer,
+    add column segment_key_id  bigint;
+
+-- Existing bodies start their cold period now
+update note_blobs set touched_date = now(6);
+
+create index idx_note_blobs_touched on note_blobs (touched_date);
+create index idx_note_blobs_segment on note_blobs (segment_id);
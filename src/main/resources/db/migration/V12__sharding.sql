@@ -0,0 +1,14 @@
+-- With sharding enabled each shard draws ids from its own range (shard id << 40), so rows
+-- keep unique ids when an owner moves between shards. Setting auto_increment below the
+-- current maximum is a no-op, as on unsharded databases where shard_id_base is 1.
+alter table note auto_increment = ${shard_id_base};
+alter table note_revisions auto_increment = ${shard_id_base};
+alter table user_data_keys auto_increment = ${shard_id_base};
+
+-- Owners pinned to a shard other than their place on the hash ring; read from the home shard
+create table owner_shards (
+    owner_username  varchar(255)  not null,
+    shard           varchar(64)   not null,
+    moving          bit           not null,
+    primary key (owner_username)
+) engine = InnoDB;
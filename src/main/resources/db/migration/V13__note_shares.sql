@@ -0,0 +1,15 @@
+-- Owner-scoped like note: stored on the owner's shard and moved with the owner
+create table note_shares (
+    id                bigint        not null auto_increment,
+    note_id           bigint        not null,
+    owner_username    varchar(255)  not null,
+    grantee_username  varchar(255)  not null,
+    permission        varchar(10)   not null,
+    created_date      datetime(6),
+    updated_date      datetime(6),
+    primary key (id),
+    constraint uk_note_shares_note_grantee unique (note_id, grantee_username),
+    index idx_note_shares_grantee (grantee_username)
+) engine = InnoDB;
+
+alter table note_shares auto_increment = ${shard_id_base};
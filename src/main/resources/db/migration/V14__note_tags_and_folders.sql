@@ -0,0 +1,29 @@
+alter table note add column folder varchar(100);
+
+-- Folder listings are keyset pages in id order, which InnoDB appends to this index
+create index idx_note_owner_folder on note (owner_username, folder);
+
+create table note_tags (
+    id              bigint        not null auto_increment,
+    note_id         bigint        not null,
+    owner_username  varchar(255)  not null,
+    tag             varchar(64)   not null,
+    primary key (id),
+    constraint uk_note_tags_note_tag unique (note_id, tag),
+    index idx_note_tags_owner_tag (owner_username, tag, note_id)
+) engine = InnoDB;
+
+-- Existing notes have neither folder nor tags, so the counts start out empty and correct
+create table note_facet_counts (
+    id              bigint        not null auto_increment,
+    owner_username  varchar(255)  not null,
+    type            varchar(10)   not null,
+    name            varchar(100)  not null,
+    note_count      bigint        not null,
+    primary key (id),
+    constraint uk_note_facet_counts_owner_type_name unique (owner_username, type, name)
+) engine = InnoDB;
+
+-- Both are owner-scoped and move between shards with the owner, see V12
+alter table note_tags auto_increment = ${shard_id_base};
+alter table note_facet_counts auto_increment = ${shard_id_base};
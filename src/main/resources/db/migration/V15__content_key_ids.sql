@@ -0,0 +1,15 @@
+-- Key rotation looked rows up by matching the sealed prefix $enc1$<keyId>$, which scans the
+-- whole table; the key id now has its own indexed column
+alter table note_blobs add column content_key_id bigint;
+alter table note_revisions add column content_key_id bigint;
+
+update note_blobs
+set content_key_id = cast(substring_index(substring(content, 7), '$', 1) as unsigned)
+where content like '$enc1$%';
+update note_blobs set content_key_id = segment_key_id where segment_key_id is not null;
+update note_revisions
+set content_key_id = cast(substring_index(substring(content, 7), '$', 1) as unsigned)
+where content like '$enc1$%';
+
+create index idx_note_blobs_content_key on note_blobs (content_key_id);
+create index idx_note_revisions_content_key on note_revisions (content_key_id);
@@ -0,0 +1,12 @@
+-- Import ids are chosen by clients, so they are only unique per owner: a surrogate key, the
+-- (owner, import id) pair as the unique key an import is claimed with, and a version that keeps
+-- two requests resuming the same import from both committing
+alter table note_imports drop primary key;
+alter table note_imports
+    add column id bigint not null auto_increment primary key first,
+    add column version bigint not null default 0,
+    add constraint uk_note_imports_owner_import unique (owner_username, import_id);
+
+-- Owner-scoped like note: ids of existing rows move into this shard's range
+update note_imports set id = id + ${shard_id_base} - 1;
+alter table note_imports auto_increment = ${shard_id_base};
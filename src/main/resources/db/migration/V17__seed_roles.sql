@@ -0,0 +1,6 @@
+-- Signup needs both roles, and production does not run the development seeding that used to
+-- create them. Idempotent, so databases seeded by earlier versions keep their rows.
+insert into roles (role_name)
+select 'ROLE_USER' from dual where not exists (select 1 from roles where role_name = 'ROLE_USER');
+insert into roles (role_name)
+select 'ROLE_ADMIN' from dual where not exists (select 1 from roles where role_name = 'ROLE_ADMIN');
@@ -0,0 +1,20 @@
+-- Segment files live in a directory shared by every node. Ids are handed out here so two nodes
+-- never pick the same one, and a segment is leased to the node appending to it until it is
+-- closed (lease_until null). Only used on the home database.
+create table note_segments (
+    id           int          not null auto_increment,
+    node         varchar(64)  not null,
+    lease_until  datetime(6),
+    primary key (id),
+    index idx_note_segments_lease (lease_until)
+) engine = InnoDB;
+
+-- Keeps background jobs that must not overlap from running on two nodes at once
+create table maintenance_locks (
+    name          varchar(64)  not null,
+    holder        varchar(64),
+    locked_until  datetime(6),
+    primary key (name)
+) engine = InnoDB;
+
+insert into maintenance_locks (name) values ('note-tiering');
@@ -0,0 +1,2 @@
+-- One lock for every background job that changes owner data, shard rebalancing included
+update maintenance_locks set name = 'owner-data' where name = 'note-tiering';
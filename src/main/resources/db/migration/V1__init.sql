@@ -0,0 +1,35 @@
+create table roles (
+    role_id   integer not null auto_increment,
+    role_name enum ('ROLE_ADMIN','ROLE_USER'),
+    primary key (role_id)
+) engine = InnoDB;
+
+create table users (
+    user_id                  bigint       not null auto_increment,
+    username                 varchar(20)  not null,
+    email                    varchar(50)  not null,
+    password                 varchar(120),
+    account_non_locked       bit          not null,
+    account_non_expired      bit          not null,
+    credentials_non_expired  bit          not null,
+    enabled                  bit          not null,
+    credentials_expiry_date  date,
+    account_expiry_date      date,
+    two_factor_secret        varchar(255),
+    is_two_factor_enabled    bit          not null,
+    sign_up_method           varchar(255),
+    role_id                  integer,
+    created_date             datetime(6),
+    updated_date             datetime(6),
+    primary key (user_id),
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email),
+    constraint fk_users_role foreign key (role_id) references roles (role_id)
+) engine = InnoDB;
+
+create table note (
+    id              bigint not null auto_increment,
+    content         longtext,
+    owner_username  varchar(255),
+    primary key (id)
+) engine = InnoDB;
@@ -0,0 +1,2 @@
+-- Every note query is scoped by owner; without this index findByOwnerUsername scans the table.
+create index idx_note_owner_username on note (owner_username);
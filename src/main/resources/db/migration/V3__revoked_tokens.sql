@@ -0,0 +1,7 @@
+create table revoked_tokens (
+    jti         varchar(64) not null,
+    expires_at  datetime(6) not null,
+    revoked_at  datetime(6) not null,
+    primary key (jti),
+    index idx_revoked_tokens_expires_at (expires_at)
+) engine = InnoDB;
@@ -0,0 +1,14 @@
+create table refresh_tokens (
+    id          bigint      not null auto_increment,
+    token_hash  varchar(64) not null,
+    family_id   varchar(36) not null,
+    user_id     bigint      not null,
+    expires_at  datetime(6) not null,
+    created_at  datetime(6) not null,
+    used_at     datetime(6),
+    revoked     bit         not null,
+    primary key (id),
+    constraint uk_refresh_tokens_hash unique (token_hash),
+    index idx_refresh_tokens_family (family_id),
+    index idx_refresh_tokens_user (user_id)
+) engine = InnoDB;
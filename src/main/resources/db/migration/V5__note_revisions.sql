@@ -0,0 +1,11 @@
+create table note_revisions (
+    id            bigint      not null auto_increment,
+    note_id       bigint      not null,
+    version       integer     not null,
+    snapshot      bit         not null,
+    content       longtext,
+    created_date  datetime(6),
+    primary key (id),
+    constraint uk_note_revisions_note_version unique (note_id, version),
+    index idx_note_revisions_created_date (created_date)
+) engine = InnoDB;
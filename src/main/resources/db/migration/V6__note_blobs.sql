@@ -0,0 +1,20 @@
+create table note_blobs (
+    hash       char(64) not null,
+    content    longtext,
+    ref_count  integer  not null,
+    primary key (hash),
+    index idx_note_blobs_ref_count (ref_count)
+) engine = InnoDB;
+
+alter table note add column content_hash char(64);
+
+-- SHA2 over the utf8mb4 column hashes its UTF-8 bytes, the same digest the application computes
+insert into note_blobs (hash, content, ref_count)
+select sha2(content, 256), any_value(content), count(*)
+from note
+where content is not null
+group by sha2(content, 256);
+
+update note set content_hash = sha2(content, 256) where content is not null;
+
+alter table note drop column content;
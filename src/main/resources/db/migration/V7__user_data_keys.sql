@@ -0,0 +1,17 @@
+create table user_data_keys (
+    id              bigint        not null auto_increment,
+    owner_username  varchar(255)  not null,
+    version         integer       not null,
+    wrapped_key     varchar(255)  not null,
+    master_kid      varchar(64)   not null,
+    created_date    datetime(6),
+    retired_date    datetime(6),
+    primary key (id),
+    constraint uk_user_data_keys_owner_version unique (owner_username, version)
+) engine = InnoDB;
+
+-- Key rotation re-points notes by content hash
+create index idx_note_content_hash on note (content_hash);
+
+-- Existing note bodies and revisions stay readable as plaintext and are encrypted
+-- by DataKeyRotationJob on its first run
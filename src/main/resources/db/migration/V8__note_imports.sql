@@ -0,0 +1,11 @@
+create table note_imports (
+    import_id        varchar(64)   not null,
+    owner_username   varchar(255)  not null,
+    processed_lines  bigint        not null,
+    imported_notes   bigint        not null,
+    completed        bit           not null,
+    created_date     datetime(6),
+    updated_date     datetime(6),
+    primary key (import_id)
+) engine = InnoDB;
+
@@ -0,0 +1,12 @@
+create table audit_events (
+    id          bigint         not null auto_increment,
+    event_time  datetime(6)    not null,
+    type        varchar(32)    not null,
+    actor       varchar(255),
+    target      varchar(255),
+    detail      varchar(1000),
+    primary key (id)
+) engine = InnoDB;
+
+create index idx_audit_event_time on audit_events (event_time);
+create index idx_audit_actor_time on audit_events (actor, event_time);
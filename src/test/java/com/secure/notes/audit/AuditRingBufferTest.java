@@ -0,0 +1,82 @@
+package com.secure.notes.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditRingBufferTest {
+
+	@Test
+	void rejectsOffersWhenFullUntilDrained() {
+		AuditRingBuffer ring = new AuditRingBuffer(4);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(ring.offer(i, AuditEventType.SIGNUP, "user" + i, null, null));
+		}
+		assertFalse(ring.offer(4, AuditEventType.SIGNUP, "user4", null, null));
+
+		List<AuditRecord> out = new ArrayList<>();
+		assertEquals(2, ring.drainTo(out, 2));
+		assertEquals("user0", out.get(0).actor());
+		assertTrue(ring.offer(4, AuditEventType.SIGNUP, "user4", null, null));
+		assertEquals(3, ring.drainTo(out, 10));
+		assertEquals("user4", out.get(4).actor());
+		assertTrue(ring.isEmpty());
+	}
+
+	@Test
+	void rejectsCapacityThatIsNotAPowerOfTwo() {
+		assertThrows(IllegalArgumentException.class, () -> new AuditRingBuffer(1000));
+	}
+
+	@Test
+	void concurrentProducersLoseNothing() throws InterruptedException {
+		int producers = 8;
+		int perProducer = 20_000;
+		AuditRingBuffer ring = new AuditRingBuffer(1024);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			String actor = "producer" + p;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perProducer; i++) {
+					while (!ring.offer(i, AuditEventType.SIGNIN_SUCCESS, actor, String.valueOf(i), null)) {
+						Thread.onSpinWait();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		Set<String> seen = new HashSet<>();
+		List<AuditRecord> batch = new ArrayList<>();
+		int total = producers * perProducer;
+		while (seen.size() < total) {
+			ring.drainTo(batch, 256);
+			for (AuditRecord record : batch) {
+				assertTrue(seen.add(record.actor() + ":" + record.target()), "duplicate " + record);
+			}
+			batch.clear();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(total, seen.size());
+		assertTrue(ring.isEmpty());
+	}
+}
@@ -0,0 +1,36 @@
+package com.secure.notes.cache;
+
+import com.secure.notes.models.NotePermission;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteGrantsTest {
+
+	@Test
+	void grantsCrossTheSharedStore() {
+		InMemorySharedCacheStore store = new InMemorySharedCacheStore();
+		TieredCache<NoteGrants> nodeA = new TieredCache<>("grants", NoteGrants.class, 100, Duration.ofMinutes(1), store);
+		TieredCache<NoteGrants> nodeB = new TieredCache<>("grants", NoteGrants.class, 100, Duration.ofMinutes(1), store);
+		NoteGrants grants = new NoteGrants(Map.of(
+				1L, new NoteGrants.Grant("alice", NotePermission.READ),
+				2L, new NoteGrants.Grant("bob", NotePermission.WRITE)));
+
+		nodeA.put("carol", grants);
+
+		assertEquals(grants, nodeB.get("carol"));
+	}
+
+	@Test
+	void writeImpliesRead() {
+		assertTrue(NotePermission.WRITE.allows(NotePermission.READ));
+		assertTrue(NotePermission.WRITE.allows(NotePermission.WRITE));
+		assertTrue(NotePermission.READ.allows(NotePermission.READ));
+		assertFalse(NotePermission.READ.allows(NotePermission.WRITE));
+	}
+}
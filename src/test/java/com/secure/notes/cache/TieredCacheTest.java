@@ -0,0 +1,94 @@
+package com.secure.notes.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TieredCacheTest {
+
+	private final InMemorySharedCacheStore store = new InMemorySharedCacheStore();
+	private final TieredCache<String> nodeA = new TieredCache<>("test", String.class, 100, Duration.ofMinutes(1), store);
+	private final TieredCache<String> nodeB = new TieredCache<>("test", String.class, 100, Duration.ofMinutes(1), store);
+
+	@Test
+	void valueLoadedOnOneNodeIsServedFromSharedStoreOnAnother() {
+		AtomicInteger loads = new AtomicInteger();
+
+		assertEquals("v1", nodeA.get("k", key -> "v" + loads.incrementAndGet()));
+		assertEquals("v1", nodeB.get("k", key -> "v" + loads.incrementAndGet()));
+
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void evictionIsBroadcastToNearCachesOfOtherNodes() {
+		nodeA.put("k", "old");
+		assertEquals("old", nodeB.get("k"));
+
+		nodeA.evict("k");
+
+		assertNull(nodeB.get("k"));
+	}
+
+	@Test
+	void valueLoadedAcrossAnEvictionIsNotCached() {
+		String loaded = nodeA.get("k", key -> {
+			// The change commits and evicts while this load still holds the rows it read before
+			nodeB.evict(key);
+			return "stale";
+		});
+
+		assertEquals("stale", loaded);
+		assertNull(nodeA.get("k"));
+		assertNull(nodeB.get("k"));
+	}
+
+	@Test
+	void evictionInsideTransactionIsRepeatedAfterCompletion() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			nodeA.evict("k");
+			// A concurrent load reads the rows before the commit and caches them
+			nodeB.put("k", "before commit");
+
+			TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+					TransactionSynchronization.STATUS_COMMITTED);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertNull(nodeA.get("k"));
+		assertNull(nodeB.get("k"));
+	}
+
+	@Test
+	void localValuesStayOnTheirNodeButEvictionsAreShared() {
+		TieredCache<String> localA = new TieredCache<>("local", String.class, 100, Duration.ofMinutes(1), store, false);
+		TieredCache<String> localB = new TieredCache<>("local", String.class, 100, Duration.ofMinutes(1), store, false);
+
+		localA.put("k", "secret");
+		localB.put("k", "other");
+
+		assertNull(store.get("notes:cache:local:k"));
+		localA.evict("k");
+		assertNull(localA.get("k"));
+		assertNull(localB.get("k"));
+	}
+
+	@Test
+	void worksWithoutSharedStore() {
+		TieredCache<String> localOnly = new TieredCache<>("local", String.class, 100, Duration.ofMinutes(1), null);
+
+		localOnly.put("k", "v");
+
+		assertEquals("v", localOnly.get("k"));
+		assertEquals(1, localOnly.localStats().hitCount());
+	}
+}
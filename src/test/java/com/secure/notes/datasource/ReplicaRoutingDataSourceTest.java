@@ -0,0 +1,75 @@
+package com.secure.notes.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicaRoutingDataSourceTest {
+
+	private String primaryUrl;
+	private String replicaUrl;
+	private ReplicaHealthMonitor monitor;
+	private ReplicaRoutingDataSource routing;
+
+	@BeforeEach
+	void setUp() {
+		primaryUrl = "jdbc:h2:mem:primary-" + UUID.randomUUID();
+		replicaUrl = "jdbc:h2:mem:replica-" + UUID.randomUUID();
+		monitor = new ReplicaHealthMonitor(Map.of("replica-0", new DriverManagerDataSource(replicaUrl)),
+				new ReplicaProperties());
+		routing = new ReplicaRoutingDataSource(new DriverManagerDataSource(primaryUrl), monitor);
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	void readOnlyTransactionsGoToReplica() throws SQLException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertEquals(replicaUrl, urlOf(routing));
+	}
+
+	@Test
+	void writesGoToPrimary() throws SQLException {
+		assertEquals(primaryUrl, urlOf(routing));
+	}
+
+	@Test
+	void readOnlyFallsBackToPrimaryWithoutHealthyReplica() throws SQLException {
+		monitor.markUnhealthy("replica-0", new SQLException("down"));
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertEquals(primaryUrl, urlOf(routing));
+	}
+
+	@Test
+	void replicaUrlTakesOverPrimaryDriverSettings() {
+		String primary = "jdbc:mysql://db:3306/securenotes?useServerPrepStmts=true&rewriteBatchedStatements=true";
+
+		assertEquals("jdbc:mysql://replica-1:3306/securenotes?useServerPrepStmts=true&rewriteBatchedStatements=true",
+				NodeDataSources.nodeUrl("jdbc:mysql://replica-1:3306/securenotes", primary));
+		assertEquals("jdbc:mysql://replica-1:3306/securenotes?sslMode=REQUIRED",
+				NodeDataSources.nodeUrl("jdbc:mysql://replica-1:3306/securenotes?sslMode=REQUIRED", primary));
+		assertTrue(NodeDataSources.nodeUrl("jdbc:h2:mem:r", "jdbc:h2:mem:p").endsWith(":r"));
+	}
+
+	private static String urlOf(DataSource dataSource) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			return connection.getMetaData().getURL();
+		}
+	}
+}
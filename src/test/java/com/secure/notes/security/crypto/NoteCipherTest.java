@@ -0,0 +1,45 @@
+package com.secure.notes.security.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteCipherTest {
+
+	private final DataKey key = key(7L, (byte) 1);
+
+	@Test
+	void roundTripsAndRecordsTheKey() {
+		String sealed = NoteCipher.seal(key, "hello wörld");
+
+		assertTrue(NoteCipher.isSealed(sealed));
+		assertEquals(7L, NoteCipher.keyId(sealed));
+		assertEquals("hello wörld", NoteCipher.open(key, sealed));
+	}
+
+	@Test
+	void sameContentEncryptsDifferentlyButHashesTheSame() {
+		assertNotEquals(NoteCipher.seal(key, "template"), NoteCipher.seal(key, "template"));
+		assertEquals(NoteCipher.dedupHash(key, "template"), NoteCipher.dedupHash(key, "template"));
+		assertNotEquals(NoteCipher.dedupHash(key, "template"), NoteCipher.dedupHash(key(8L, (byte) 2), "template"));
+	}
+
+	@Test
+	void rejectsTamperedContentAndKeyId() {
+		String sealed = NoteCipher.seal(key, "secret");
+		byte[] bytes = sealed.getBytes(StandardCharsets.US_ASCII);
+		bytes[bytes.length - 10] ^= 1;
+
+		assertThrows(RuntimeException.class, () -> NoteCipher.open(key, new String(bytes, StandardCharsets.US_ASCII)));
+		assertThrows(RuntimeException.class, () -> NoteCipher.open(key, sealed.replace("$7$", "$8$")));
+	}
+
+	private static DataKey key(Long id, byte fill) {
+		byte[] secret = new byte[32];
+		Arrays.fill(secret, fill);
+		return NoteCipher.deriveKey(id, "user" + id, secret);
+	}
+}
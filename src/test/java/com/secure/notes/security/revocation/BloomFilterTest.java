@@ -0,0 +1,41 @@
+package com.secure.notes.security.revocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+	@Test
+	void neverReportsAnInsertedValueAsAbsent() {
+		BloomFilter filter = new BloomFilter(1_000, 0.01);
+		String[] ids = new String[1_000];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = UUID.randomUUID().toString();
+			filter.put(ids[i]);
+		}
+
+		for (String id : ids) {
+			assertTrue(filter.mightContain(id));
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTarget() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put(UUID.randomUUID().toString());
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain(UUID.randomUUID().toString())) {
+				falsePositives++;
+			}
+		}
+
+		assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+	}
+}
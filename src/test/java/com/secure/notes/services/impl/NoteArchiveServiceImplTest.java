@@ -0,0 +1,137 @@
+package com.secure.notes.services.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secure.notes.models.Note;
+import com.secure.notes.models.NoteImport;
+import com.secure.notes.services.NoteArchiveService;
+import com.secure.notes.services.NoteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.app.notes.archive.batch-size=2")
+@ActiveProfiles("test")
+class NoteArchiveServiceImplTest {
+
+	@Autowired
+	private NoteArchiveService noteArchiveService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void interruptedImportResumesAfterLastCommittedBatch() throws Exception {
+		String username = username();
+		String archive = archive(5);
+		// Fails after four lines, i.e. after two committed batches
+		int cut = archive.indexOf("note 4") + "note 4\"}\n".length();
+		InputStream interrupted = new SequenceInputStream(
+				new ByteArrayInputStream(archive.substring(0, cut).getBytes(StandardCharsets.UTF_8)),
+				new InputStream() {
+					@Override
+					public int read() throws IOException {
+						throw new IOException("connection reset");
+					}
+				});
+
+		assertThrows(IOException.class, () -> noteArchiveService.importNotes(username, "backup", interrupted));
+		NoteImport partial = noteArchiveService.getImport(username, "backup");
+		assertEquals(4, partial.getProcessedLines());
+		// Each committed batch is visible right away
+		assertEquals(4, noteService.getNotesForUser(username).size());
+
+		NoteImport resumed = noteArchiveService.importNotes(username, "backup", stream(archive));
+
+		assertTrue(resumed.isCompleted());
+		assertEquals(5, resumed.getImportedNotes());
+		assertEquals(List.of("note 1", "note 2", "note 3", "note 4", "note 5"), contents(username));
+	}
+
+	@Test
+	void completedImportIsNotRepeated() throws Exception {
+		String username = username();
+
+		noteArchiveService.importNotes(username, "once", stream(archive(3)));
+		NoteImport again = noteArchiveService.importNotes(username, "once", stream(archive(3)));
+
+		assertTrue(again.isCompleted());
+		assertEquals(3, noteService.getNotesForUser(username).size());
+	}
+
+	@Test
+	void importIdsAreScopedToTheirOwner() throws Exception {
+		String first = username();
+		String second = username();
+
+		noteArchiveService.importNotes(first, "shared-id", stream(archive(2)));
+		NoteImport other = noteArchiveService.importNotes(second, "shared-id", stream(archive(3)));
+
+		assertEquals(3, other.getImportedNotes());
+		assertEquals(2, noteService.getNotesForUser(first).size());
+		assertEquals(3, noteService.getNotesForUser(second).size());
+		assertThrows(RuntimeException.class, () -> noteArchiveService.getImport(username(), "shared-id"));
+	}
+
+	@Test
+	void exportResumesAfterLastReceivedId() throws Exception {
+		String username = username();
+		List<Note> notes = IntStream.rangeClosed(1, 5)
+				.mapToObj(i -> noteService.createNoteForUser(username, "note " + i))
+				.toList();
+
+		List<JsonNode> full = export(username, null);
+		List<JsonNode> resumed = export(username, notes.get(1).getId());
+
+		assertEquals(6, full.size());
+		assertEquals(5, full.getLast().get("exported").asLong());
+		assertEquals(List.of("note 3", "note 4", "note 5"),
+				resumed.subList(0, 3).stream().map(line -> line.get("content").asText()).toList());
+		assertTrue(resumed.getLast().get("complete").asBoolean());
+		assertEquals(3, resumed.getLast().get("exported").asLong());
+	}
+
+	private List<JsonNode> export(String username, Long afterId) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		noteArchiveService.exportNotes(username, afterId, out);
+		return objectMapper.readerFor(JsonNode.class).<JsonNode>readValues(out.toByteArray()).readAll();
+	}
+
+	private List<String> contents(String username) {
+		return noteService.getNotesForUser(username).stream().map(Note::getContent).sorted().toList();
+	}
+
+	private static String archive(int notes) {
+		StringBuilder archive = new StringBuilder();
+		for (int i = 1; i <= notes; i++) {
+			archive.append("{\"id\":").append(i).append(",\"content\":\"note ").append(i).append("\"}\n");
+		}
+		return archive.toString();
+	}
+
+	private static InputStream stream(String archive) {
+		return new ByteArrayInputStream(archive.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String username() {
+		return "u" + UUID.randomUUID().toString().substring(0, 8);
+	}
+}
@@ -0,0 +1,240 @@
+package com.secure.notes.services.impl;
+
+import com.secure.notes.cache.NoteFacets;
+import com.secure.notes.dtos.SharedNoteResponse;
+import com.secure.notes.models.Note;
+import com.secure.notes.models.NotePermission;
+import com.secure.notes.models.User;
+import com.secure.notes.repositories.NoteShareRepository;
+import com.secure.notes.repositories.UserRepository;
+import com.secure.notes.services.NoteService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.secure.notes.services.impl.NoteServiceImplTest$GrantQueryCounter")
+@ActiveProfiles("test")
+class NoteServiceImplTest {
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private NotePermissionResolver notePermissionResolver;
+
+	@Autowired
+	private NoteShareRepository noteShareRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void granteeUpdatesOnlyWithWriteShare() {
+		String owner = username();
+		String grantee = user();
+		Note note = noteService.createNoteForUser(owner, "draft");
+
+		noteService.shareNote(note.getId(), grantee, NotePermission.READ, owner);
+		assertThrows(RuntimeException.class, () -> noteService.updateNoteForUser(note.getId(), "edited", grantee));
+
+		noteService.shareNote(note.getId(), grantee, NotePermission.WRITE, owner);
+		noteService.updateNoteForUser(note.getId(), "edited", grantee);
+
+		assertEquals("edited", noteService.getNotesForUser(owner).getFirst().getContent());
+	}
+
+	@Test
+	void nonOwnerDeleteIsANoOp() {
+		String owner = username();
+		String grantee = user();
+		Note note = noteService.createNoteForUser(owner, "keep me");
+		noteService.shareNote(note.getId(), grantee, NotePermission.WRITE, owner);
+
+		noteService.deleteNoteForUser(note.getId(), grantee);
+
+		assertEquals(1, noteService.getNotesForUser(owner).size());
+		assertEquals(List.of(note.getId()), sharedIds(grantee));
+	}
+
+	@Test
+	void listsNotesSharedWithUser() {
+		String first = username();
+		String second = username();
+		String grantee = user();
+		Note read = noteService.createNoteForUser(first, "first");
+		Note write = noteService.createNoteForUser(second, "second");
+		noteService.createNoteForUser(second, "not shared");
+		noteService.shareNote(read.getId(), grantee, NotePermission.READ, first);
+		noteService.shareNote(write.getId(), grantee, NotePermission.WRITE, second);
+
+		List<SharedNoteResponse> shared = noteService.getNotesSharedWithUser(grantee);
+
+		assertEquals(List.of(
+				new SharedNoteResponse(read.getId(), "first", first, NotePermission.READ),
+				new SharedNoteResponse(write.getId(), "second", second, NotePermission.WRITE)), shared);
+	}
+
+	@Test
+	void unshareRevokesAccess() {
+		String owner = username();
+		String grantee = user();
+		Note note = noteService.createNoteForUser(owner, "private again");
+		noteService.shareNote(note.getId(), grantee, NotePermission.WRITE, owner);
+		assertEquals(List.of(note.getId()), sharedIds(grantee));
+
+		noteService.unshareNote(note.getId(), grantee, owner);
+
+		assertTrue(sharedIds(grantee).isEmpty());
+		assertThrows(RuntimeException.class, () -> noteService.updateNoteForUser(note.getId(), "edited", grantee));
+	}
+
+	@Test
+	void writeChecksTheShareRowNotTheCachedGrant() {
+		String owner = username();
+		String grantee = user();
+		Note note = noteService.createNoteForUser(owner, "draft");
+		noteService.shareNote(note.getId(), grantee, NotePermission.WRITE, owner);
+		assertEquals(List.of(note.getId()), sharedIds(grantee));
+
+		// Revoked without evicting, as seen by a node the eviction has not reached yet
+		noteShareRepository.deleteAll(noteShareRepository.findByNoteId(note.getId()));
+
+		assertThrows(RuntimeException.class, () -> noteService.updateNoteForUser(note.getId(), "edited", grantee));
+		assertEquals("draft", noteService.getNotesForUser(owner).getFirst().getContent());
+	}
+
+	@Test
+	void listingLoadsGrantsWithOneQuery() {
+		String first = username();
+		String second = username();
+		String grantee = user();
+		for (String owner : List.of(first, second)) {
+			for (int i = 0; i < 3; i++) {
+				Note note = noteService.createNoteForUser(owner, "note " + i);
+				noteService.shareNote(note.getId(), grantee, NotePermission.READ, owner);
+			}
+		}
+		notePermissionResolver.evict(grantee);
+
+		GrantQueryCounter.COUNT.set(0);
+		assertEquals(6, noteService.getNotesSharedWithUser(grantee).size());
+		assertEquals(1, GrantQueryCounter.COUNT.get());
+
+		// Served from the grant cache afterwards
+		GrantQueryCounter.COUNT.set(0);
+		assertEquals(6, noteService.getNotesSharedWithUser(grantee).size());
+		assertEquals(0, GrantQueryCounter.COUNT.get());
+	}
+
+	@Test
+	void facetCountsFollowMovesRetagsAndDeletes() {
+		String owner = username();
+		Note first = noteService.createNoteForUser(owner, "first");
+		Note second = noteService.createNoteForUser(owner, "second");
+		noteService.moveNoteToFolder(first.getId(), "work", owner);
+		noteService.moveNoteToFolder(second.getId(), " work ", owner);
+		noteService.tagNote(first.getId(), List.of("Urgent", "todo"), owner);
+		noteService.tagNote(second.getId(), List.of("todo"), owner);
+		assertEquals(new NoteFacets(Map.of("work", 2L), Map.of("urgent", 1L, "todo", 2L)),
+				noteService.getFacetsForUser(owner));
+
+		noteService.moveNoteToFolder(first.getId(), "home", owner);
+		noteService.tagNote(first.getId(), List.of("todo", "later"), owner);
+		assertEquals(new NoteFacets(Map.of("work", 1L, "home", 1L), Map.of("todo", 2L, "later", 1L)),
+				noteService.getFacetsForUser(owner));
+
+		noteService.deleteNoteForUser(second.getId(), owner);
+		assertEquals(new NoteFacets(Map.of("home", 1L), Map.of("todo", 1L, "later", 1L)),
+				noteService.getFacetsForUser(owner));
+	}
+
+	@Test
+	void listingsFilterByFolderAndTag() {
+		String owner = username();
+		Note workX = note(owner, "work", "x");
+		Note workY = note(owner, "work", "y");
+		Note homeX = note(owner, "home", "x");
+		Note loose = noteService.createNoteForUser(owner, "loose");
+
+		assertEquals(ids(workX, workY), ids(noteService.getNotesForUser(owner, "work", null, null, 10)));
+		assertEquals(ids(workX, homeX), ids(noteService.getNotesForUser(owner, null, "X", null, 10)));
+		assertEquals(ids(workX), ids(noteService.getNotesForUser(owner, "work", "x", null, 10)));
+		assertEquals(ids(workX, workY, homeX, loose), ids(noteService.getNotesForUser(owner, null, null, null, 10)));
+		assertEquals(List.of("y"), noteService.getNotesForUser(owner, "work", "y", null, 10).getFirst().getTags());
+	}
+
+	@Test
+	void keysetPagingContinuesAfterLastId() {
+		String owner = username();
+		List<Note> notes = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			notes.add(note(owner, "paged", "t"));
+		}
+
+		List<Note> first = noteService.getNotesForUser(owner, "paged", "t", null, 2);
+		List<Note> second = noteService.getNotesForUser(owner, "paged", "t", first.getLast().getId(), 2);
+		List<Note> third = noteService.getNotesForUser(owner, "paged", "t", second.getLast().getId(), 2);
+
+		assertEquals(ids(notes.get(0), notes.get(1)), ids(first));
+		assertEquals(ids(notes.get(2), notes.get(3)), ids(second));
+		assertEquals(ids(notes.get(4)), ids(third));
+		assertTrue(noteService.getNotesForUser(owner, "paged", "t", third.getLast().getId(), 2).isEmpty());
+	}
+
+	private Note note(String owner, String folder, String tag) {
+		Note note = noteService.createNoteForUser(owner, folder + " " + tag);
+		noteService.moveNoteToFolder(note.getId(), folder, owner);
+		return noteService.tagNote(note.getId(), List.of(tag), owner);
+	}
+
+	private static List<Long> ids(Note... notes) {
+		return ids(List.of(notes));
+	}
+
+	private static List<Long> ids(List<Note> notes) {
+		return notes.stream().map(Note::getId).toList();
+	}
+
+	private List<Long> sharedIds(String grantee) {
+		return noteService.getNotesSharedWithUser(grantee).stream().map(SharedNoteResponse::id).toList();
+	}
+
+	// Shares can only be granted to existing users
+	private String user() {
+		String username = username();
+		userRepository.save(new User(username, username + "@example.com"));
+		return username;
+	}
+
+	private static String username() {
+		return "u" + UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	// Counts the statements reading shares
+	public static class GrantQueryCounter implements StatementInspector {
+
+		static final AtomicInteger COUNT = new AtomicInteger();
+
+		@Override
+		public String inspect(String sql) {
+			String normalized = sql.toLowerCase();
+			if (normalized.startsWith("select") && normalized.contains(" from note_shares ")) {
+				COUNT.incrementAndGet();
+			}
+			return sql;
+		}
+	}
+}
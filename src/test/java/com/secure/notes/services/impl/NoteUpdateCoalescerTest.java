@@ -0,0 +1,172 @@
+package com.secure.notes.services.impl;
+
+import com.secure.notes.models.Note;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteUpdateCoalescerTest {
+
+	private final NoteUpdateCoalescer coalescer = new NoteUpdateCoalescer();
+
+	@Test
+	void updatesArrivingDuringAWriteAreMergedIntoOneWrite() throws Exception {
+		CountDownLatch firstWriteStarted = new CountDownLatch(1);
+		CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+		AtomicInteger writes = new AtomicInteger();
+		List<String> persisted = new ArrayList<>();
+
+		ExecutorService executor = Executors.newFixedThreadPool(6);
+		try {
+			Future<Note> first = executor.submit(() -> coalescer.update(1L, "v0", content -> {
+				if (writes.incrementAndGet() == 1) {
+					firstWriteStarted.countDown();
+					await(releaseFirstWrite);
+				}
+				synchronized (persisted) {
+					persisted.add(content);
+				}
+				return note(content);
+			}));
+			firstWriteStarted.await(5, TimeUnit.SECONDS);
+
+			List<Future<Note>> followers = new ArrayList<>();
+			for (int i = 1; i <= 5; i++) {
+				String content = "v" + i;
+				followers.add(executor.submit(() -> coalescer.update(1L, content, c -> {
+					throw new AssertionError("followers never write");
+				})));
+				Thread.sleep(20);
+			}
+			releaseFirstWrite.countDown();
+
+			assertEquals("v0", first.get(5, TimeUnit.SECONDS).getContent());
+			for (Future<Note> follower : followers) {
+				assertEquals("v5", follower.get(5, TimeUnit.SECONDS).getContent());
+			}
+			assertEquals(2, writes.get());
+			assertEquals(List.of("v0", "v5"), persisted);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void failedWriteIsReportedToEveryMergedCaller() throws Exception {
+		CountDownLatch firstWriteStarted = new CountDownLatch(1);
+		CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("boom");
+		AtomicInteger writes = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			Future<Note> first = executor.submit(() -> coalescer.update(2L, "v0", content -> {
+				if (writes.incrementAndGet() == 1) {
+					firstWriteStarted.countDown();
+					await(releaseFirstWrite);
+					return note(content);
+				}
+				throw failure;
+			}));
+			firstWriteStarted.await(5, TimeUnit.SECONDS);
+
+			// Both arrive during the first write and are merged into the second one, which fails
+			List<Future<Note>> merged = new ArrayList<>();
+			for (int i = 1; i <= 2; i++) {
+				String content = "v" + i;
+				merged.add(executor.submit(() -> coalescer.update(2L, content, c -> {
+					throw new AssertionError("followers never write");
+				})));
+				Thread.sleep(20);
+			}
+			releaseFirstWrite.countDown();
+
+			assertEquals("v0", first.get(5, TimeUnit.SECONDS).getContent());
+			for (Future<Note> caller : merged) {
+				ExecutionException thrown = assertThrows(ExecutionException.class,
+						() -> caller.get(5, TimeUnit.SECONDS));
+				assertEquals(failure, thrown.getCause());
+			}
+			assertEquals(2, writes.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void leaderHandsOverUnderSustainedUpdates() throws Exception {
+		int totalWrites = 20;
+		AtomicInteger writes = new AtomicInteger();
+		List<AtomicInteger> writesByCaller = new CopyOnWriteArrayList<>();
+		List<Future<Note>> callers = new CopyOnWriteArrayList<>();
+
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			// Every write lets another update arrive, so there is always one waiting
+			Runnable submitCaller = new Runnable() {
+				@Override
+				public void run() {
+					AtomicInteger ownWrites = new AtomicInteger();
+					writesByCaller.add(ownWrites);
+					String content = "v" + callers.size();
+					Runnable next = this;
+					callers.add(executor.submit(() -> coalescer.update(3L, content, c -> {
+						ownWrites.incrementAndGet();
+						if (writes.incrementAndGet() < totalWrites) {
+							next.run();
+							sleep(20);
+						}
+						return note(c);
+					})));
+				}
+			};
+			submitCaller.run();
+
+			for (int i = 0; i < callers.size(); i++) {
+				callers.get(i).get(10, TimeUnit.SECONDS);
+			}
+			assertEquals(totalWrites, writes.get());
+			for (AtomicInteger ownWrites : writesByCaller) {
+				assertTrue(ownWrites.get() <= 4, "a caller wrote " + ownWrites.get() + " times for others");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Note note(String content) {
+		Note note = new Note();
+		note.setId(1L);
+		note.setContent(content);
+		return note;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
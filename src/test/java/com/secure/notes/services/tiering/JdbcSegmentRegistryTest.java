@@ -0,0 +1,57 @@
+package com.secure.notes.services.tiering;
+
+import com.secure.notes.sharding.ShardRouter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcSegmentRegistryTest {
+
+	private HikariDataSource pool;
+	private JdbcSegmentRegistry registry;
+
+	// Like the prod pool: a connection returned with uncommitted changes is rolled back
+	@BeforeEach
+	void setUp() {
+		pool = new HikariDataSource();
+		pool.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		pool.setAutoCommit(false);
+		// DDL commits implicitly
+		new JdbcTemplate(pool).execute("create table note_segments (id int auto_increment primary key, "
+				+ "node varchar(64) not null, lease_until timestamp)");
+		registry = new JdbcSegmentRegistry(pool, new ShardRouter());
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	void leasesOutliveTheirConnections() {
+		Instant leaseUntil = Instant.now().plusSeconds(600);
+
+		int first = registry.open("node-a", leaseUntil);
+		int second = registry.open("node-b", leaseUntil);
+		assertEquals(Set.of(first, second), registry.openSegments());
+
+		assertTrue(registry.renew(first, "node-a", leaseUntil.plusSeconds(600)));
+		assertFalse(registry.renew(first, "node-b", leaseUntil.plusSeconds(600)));
+		registry.close(second);
+		assertEquals(Set.of(first), registry.openSegments());
+
+		assertEquals(1, registry.closeExpired(leaseUntil.plusSeconds(1200)));
+		registry.forget(second);
+		assertTrue(registry.openSegments().isEmpty());
+	}
+}
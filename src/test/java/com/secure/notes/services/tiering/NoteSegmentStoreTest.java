@@ -0,0 +1,200 @@
+package com.secure.notes.services.tiering;
+
+import com.secure.notes.security.crypto.DataKey;
+import com.secure.notes.security.crypto.DataKeyService;
+import com.secure.notes.security.crypto.NoteCipher;
+import com.secure.notes.security.crypto.SealedText;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteSegmentStoreTest {
+
+	private static final String HASH = "a".repeat(64);
+
+	@TempDir
+	Path directory;
+
+	private final DataKeyService keys = new DataKeyService() {
+		@Override
+		public DataKey key(long id) {
+			byte[] secret = new byte[32];
+			Arrays.fill(secret, (byte) id);
+			return NoteCipher.deriveKey(id, "user", secret);
+		}
+	};
+
+	// Shared by every store of a test, like the home database is by every node
+	private final InMemorySegmentRegistry registry = new InMemorySegmentRegistry();
+
+	@Test
+	void readsBackAppendedAndCopiedEntries() throws Exception {
+		NoteSegmentStore store = store(DataSize.ofMegabytes(1));
+		String body = "meeting notes ".repeat(500);
+
+		NoteSegmentStore.Location location = store.append(HASH, new SealedText(3L, body));
+		store.sync();
+		assertEquals(body, store.read(location, HASH));
+		assertTrue(location.length() < body.length(), "entry should be compressed");
+
+		NoteSegmentStore.Location copy = store.copy(location);
+		assertEquals(body, store.read(copy, HASH));
+		store.destroy();
+	}
+
+	@Test
+	void rejectsAnEntryReadAsAnotherBlob() throws Exception {
+		NoteSegmentStore store = store(DataSize.ofMegabytes(1));
+		NoteSegmentStore.Location location = store.append(HASH, new SealedText(3L, "body"));
+
+		assertThrows(IllegalStateException.class, () -> store.read(location, "b".repeat(64)));
+		store.destroy();
+	}
+
+	@Test
+	void rollsOverAndNeverAppendsToAnOldSegment() throws Exception {
+		NoteSegmentStore store = store(DataSize.ofBytes(200));
+		NoteSegmentStore.Location first = store.append(HASH, new SealedText(1L, "x".repeat(100)));
+		NoteSegmentStore.Location second = store.append(HASH, new SealedText(1L, "random-ish 0123456789".repeat(20)));
+		assertNotEquals(first.segmentId(), second.segmentId());
+		store.destroy();
+
+		NoteSegmentStore reopened = store(DataSize.ofBytes(200));
+		NoteSegmentStore.Location third = reopened.append(HASH, new SealedText(1L, "y"));
+		assertTrue(third.segmentId() > second.segmentId());
+		assertEquals("x".repeat(100), reopened.read(first, HASH));
+
+		reopened.delete(first.segmentId());
+		assertFalse(reopened.segmentIds().contains(first.segmentId()));
+		reopened.destroy();
+	}
+
+	@Test
+	void nodesSharingTheDirectoryAppendToTheirOwnSegments() throws Exception {
+		NoteSegmentStore first = store(DataSize.ofMegabytes(1));
+		NoteSegmentStore second = store(DataSize.ofMegabytes(1));
+
+		NoteSegmentStore.Location a = first.append(HASH, new SealedText(1L, "from the first node"));
+		NoteSegmentStore.Location b = second.append(HASH, new SealedText(1L, "from the second node"));
+
+		assertNotEquals(a.segmentId(), b.segmentId());
+		assertEquals("from the second node", first.read(b, HASH));
+		assertThrows(IllegalArgumentException.class, () -> first.delete(b.segmentId()));
+		assertTrue(first.segmentIds().contains(b.segmentId()));
+
+		second.destroy();
+		first.delete(b.segmentId());
+		assertFalse(first.segmentIds().contains(b.segmentId()));
+		first.destroy();
+	}
+
+	@Test
+	void skipsSegmentFilesWrittenBeforeTheRegistry() throws Exception {
+		Files.write(directory.resolve("segment-1.seg"), new byte[]{1, 2, 3});
+		NoteSegmentStore store = store(DataSize.ofMegabytes(1));
+
+		NoteSegmentStore.Location location = store.append(HASH, new SealedText(1L, "body"));
+
+		assertEquals(2, location.segmentId());
+		assertEquals(3, Files.size(directory.resolve("segment-1.seg")));
+		store.destroy();
+	}
+
+	@Test
+	void stopsAppendingToASegmentWhoseLeaseWasTaken() throws Exception {
+		TieringProperties properties = properties(DataSize.ofMegabytes(1));
+		// Renewed on every append
+		properties.setSegmentLease(Duration.ZERO);
+		NoteSegmentStore store = new NoteSegmentStore(properties, keys, registry);
+		NoteSegmentStore.Location before = store.append(HASH, new SealedText(1L, "before"));
+
+		registry.closeExpired(Instant.now().plusSeconds(60));
+		NoteSegmentStore.Location after = store.append(HASH, new SealedText(1L, "after"));
+
+		assertNotEquals(before.segmentId(), after.segmentId());
+		assertEquals("before", store.read(before, HASH));
+		store.destroy();
+	}
+
+	private NoteSegmentStore store(DataSize maxSegmentSize) {
+		return new NoteSegmentStore(properties(maxSegmentSize), keys, registry);
+	}
+
+	private TieringProperties properties(DataSize maxSegmentSize) {
+		TieringProperties properties = new TieringProperties();
+		properties.setDirectory(directory.toString());
+		properties.setMaxSegmentSize(maxSegmentSize);
+		return properties;
+	}
+
+	private static class InMemorySegmentRegistry implements SegmentRegistry {
+
+		private final Map<Integer, String> nodes = new HashMap<>();
+		// Null once closed
+		private final Map<Integer, Instant> leases = new HashMap<>();
+		private int nextId = 1;
+
+		@Override
+		public synchronized int open(String node, Instant leaseUntil) {
+			int id = nextId++;
+			nodes.put(id, node);
+			leases.put(id, leaseUntil);
+			return id;
+		}
+
+		@Override
+		public synchronized boolean renew(int segmentId, String node, Instant leaseUntil) {
+			if (!node.equals(nodes.get(segmentId)) || leases.get(segmentId) == null) {
+				return false;
+			}
+			leases.put(segmentId, leaseUntil);
+			return true;
+		}
+
+		@Override
+		public synchronized void close(int segmentId) {
+			leases.put(segmentId, null);
+		}
+
+		@Override
+		public synchronized int closeExpired(Instant now) {
+			int closed = 0;
+			for (Map.Entry<Integer, Instant> lease : leases.entrySet()) {
+				if (lease.getValue() != null && lease.getValue().isBefore(now)) {
+					lease.setValue(null);
+					closed++;
+				}
+			}
+			return closed;
+		}
+
+		@Override
+		public synchronized Set<Integer> openSegments() {
+			Set<Integer> open = new HashSet<>();
+			leases.forEach((id, leaseUntil) -> {
+				if (leaseUntil != null) {
+					open.add(id);
+				}
+			});
+			return open;
+		}
+
+		@Override
+		public synchronized void forget(int segmentId) {
+			nodes.remove(segmentId);
+			leases.remove(segmentId);
+		}
+	}
+}
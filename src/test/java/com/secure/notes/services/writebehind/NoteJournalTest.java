@@ -0,0 +1,71 @@
+package com.secure.notes.services.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NoteJournalTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void syncRacingRotationSucceeds() throws Exception {
+		int writers = 4;
+		int writesPerWriter = 500;
+		AtomicBoolean writing = new AtomicBoolean(true);
+		try (NoteJournal journal = new NoteJournal(directory);
+			 ExecutorService executor = Executors.newFixedThreadPool(writers + 1)) {
+			List<Future<?>> results = new ArrayList<>();
+			for (int w = 0; w < writers; w++) {
+				long noteId = w;
+				results.add(executor.submit(() -> {
+					for (int i = 0; i < writesPerWriter; i++) {
+						long segment;
+						long position;
+						journal.lock().lock();
+						try {
+							position = journal.append(noteId, "user", "content " + i);
+							segment = journal.currentSegment();
+						} finally {
+							journal.lock().unlock();
+						}
+						// Must not fail when the segment is rotated and closed while it is being forced
+						journal.sync(segment, position);
+					}
+					return null;
+				}));
+			}
+			Future<?> rotator = executor.submit(() -> {
+				while (writing.get()) {
+					journal.lock().lock();
+					try {
+						journal.rotate();
+					} finally {
+						journal.lock().unlock();
+					}
+					Thread.sleep(1);
+				}
+				return null;
+			});
+			for (Future<?> result : results) {
+				result.get();
+			}
+			writing.set(false);
+			rotator.get();
+		}
+
+		try (NoteJournal reopened = new NoteJournal(directory)) {
+			assertEquals(writers * writesPerWriter, reopened.replay().size());
+		}
+	}
+}
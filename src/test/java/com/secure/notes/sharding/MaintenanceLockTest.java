@@ -0,0 +1,64 @@
+package com.secure.notes.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MaintenanceLockTest {
+
+	private HikariDataSource pool;
+	private JdbcTemplate jdbc;
+
+	// Like the prod pool: a connection returned with uncommitted changes is rolled back
+	@BeforeEach
+	void setUp() {
+		pool = new HikariDataSource();
+		pool.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		pool.setAutoCommit(false);
+		jdbc = new JdbcTemplate(pool);
+		new TransactionTemplate(new DataSourceTransactionManager(pool)).executeWithoutResult(status -> {
+			jdbc.execute("create table maintenance_locks (name varchar(64) primary key, holder varchar(64), "
+					+ "locked_until timestamp)");
+			jdbc.update("insert into maintenance_locks (name) values ('owner-data')");
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	void excludesOtherNodesOnANonAutoCommitPool() {
+		MaintenanceLock first = new MaintenanceLock(pool, new ShardRouter(), Duration.ofHours(1));
+		MaintenanceLock second = new MaintenanceLock(pool, new ShardRouter(), Duration.ofHours(1));
+		AtomicBoolean secondRan = new AtomicBoolean();
+
+		boolean firstRan = first.runExclusively("tiering", () -> {
+			assertTrue(holder().startsWith("tiering@"));
+			assertFalse(second.runExclusively("key rotation", () -> secondRan.set(true)));
+		});
+
+		assertTrue(firstRan);
+		assertFalse(secondRan.get());
+		assertNull(holder());
+		assertTrue(second.runExclusively("key rotation", () -> secondRan.set(true)));
+		assertTrue(secondRan.get());
+	}
+
+	private String holder() {
+		return jdbc.queryForObject("select holder from maintenance_locks where name = 'owner-data'", String.class);
+	}
+}
@@ -0,0 +1,199 @@
+package com.secure.notes.sharding;
+
+import com.secure.notes.cache.NoteList;
+import com.secure.notes.cache.TieredCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardRebalancerTest {
+
+	private JdbcTemplate shardA;
+	private JdbcTemplate shardB;
+	private ShardRouter router;
+	private ShardRebalancer rebalancer;
+
+	@BeforeEach
+	void setUp() {
+		Map<String, DataSource> dataSources = new LinkedHashMap<>();
+		dataSources.put("A", database());
+		dataSources.put("B", database());
+		shardA = new JdbcTemplate(dataSources.get("A"));
+		shardB = new JdbcTemplate(dataSources.get("B"));
+		createSchema(shardA);
+		createSchema(shardB);
+
+		ShardingProperties properties = new ShardingProperties();
+		properties.setEnabled(true);
+		properties.setMoveGrace(Duration.ZERO);
+		properties.setShards(List.of(shard("A", 0, ShardingProperties.ShardState.ACTIVE),
+				shard("B", 1, ShardingProperties.ShardState.JOINING)));
+		ShardDataSources shardDataSources = new ShardDataSources(dataSources);
+		router = new ShardRouter(properties, shardDataSources, null);
+		router.afterSingletonsInstantiated();
+		TieredCache<NoteList> noteListCache =
+				new TieredCache<>("notes", NoteList.class, 100, Duration.ofMinutes(1), null);
+		MaintenanceLock maintenanceLock = new MaintenanceLock(shardA.getDataSource(), router, Duration.ofHours(1));
+		rebalancer = new ShardRebalancer(properties, router, shardDataSources, maintenanceLock, noteListCache);
+	}
+
+	@Test
+	void movesOwnersBelongingToJoiningShard() {
+		String leaving = ownerTargeting("B");
+		String staying = ownerTargeting("A");
+		insertNote(1, leaving, "h1");
+		insertNote(2, leaving, "shared");
+		insertNote(3, staying, "shared");
+		shardA.update("insert into note_blobs (hash, content, ref_count) values ('h1', 'x', 1), ('shared', 'y', 2)");
+		shardA.update("insert into note_revisions (id, note_id, version) values (10, 1, 1), (11, 3, 1)");
+		shardA.update("insert into user_data_keys (id, owner_username, key_id) values (20, ?, 1), (21, ?, 1)",
+				leaving, staying);
+		shardA.update("insert into note_tags (id, note_id, owner_username, tag) values (40, 1, ?, 'work'), "
+				+ "(41, 3, ?, 'work')", leaving, staying);
+		shardA.update("insert into note_facet_counts (id, owner_username, type, name, note_count) "
+				+ "values (50, ?, 'TAG', 'work', 1), (51, ?, 'TAG', 'work', 1)", leaving, staying);
+		shardA.update("insert into note_shares (id, note_id, owner_username, grantee_username) values (30, 1, ?, ?)",
+				leaving, staying);
+
+		ShardRebalancer.Status status = rebalancer.rebalance();
+
+		assertEquals(1, status.movedOwners());
+		assertEquals(0, status.failedOwners());
+		assertEquals("B", router.shardFor(leaving));
+		assertEquals("A", router.shardFor(staying));
+		assertEquals(List.of(1L, 2L), ids(shardB, "note"));
+		assertEquals(List.of(3L), ids(shardA, "note"));
+		assertEquals(List.of(10L), ids(shardB, "note_revisions"));
+		assertEquals(List.of(11L), ids(shardA, "note_revisions"));
+		assertEquals(List.of(20L), ids(shardB, "user_data_keys"));
+		assertEquals(List.of(30L), ids(shardB, "note_shares"));
+		assertEquals(List.of(), ids(shardA, "note_shares"));
+		assertEquals(List.of(40L), ids(shardB, "note_tags"));
+		assertEquals(List.of(41L), ids(shardA, "note_tags"));
+		assertEquals(List.of(50L), ids(shardB, "note_facet_counts"));
+		assertEquals(List.of(51L), ids(shardA, "note_facet_counts"));
+		// Blob references follow the notes; h1 is left for garbage collection on A
+		assertEquals(1, refCount(shardB, "h1"));
+		assertEquals(1, refCount(shardB, "shared"));
+		assertEquals(0, refCount(shardA, "h1"));
+		assertEquals(1, refCount(shardA, "shared"));
+	}
+
+	@Test
+	void secondRunMovesNothing() {
+		String leaving = ownerTargeting("B");
+		insertNote(1, leaving, null);
+		rebalancer.rebalance();
+
+		ShardRebalancer.Status status = rebalancer.rebalance();
+
+		assertEquals(0, status.movedOwners());
+		assertEquals(List.of(1L), ids(shardB, "note"));
+		assertFalse(status.running());
+	}
+
+	@Test
+	void waitsForOtherMaintenanceChangingNoteData() {
+		String leaving = ownerTargeting("B");
+		insertNote(1, leaving, null);
+		shardA.update("update maintenance_locks set holder = 'key rotation', locked_until = ?",
+				Timestamp.from(Instant.now().plusSeconds(60)));
+
+		ShardRebalancer.Status status = rebalancer.rebalance();
+
+		assertEquals(0, status.movedOwners());
+		assertNotNull(status.lastError());
+		assertEquals("A", router.shardFor(leaving));
+		assertEquals(List.of(1L), ids(shardA, "note"));
+	}
+
+	@Test
+	void keepsSourceRowsOfAMoveLeftForReconciliation() {
+		String leaving = ownerTargeting("B");
+		insertNote(1, leaving, null);
+		shardB.update("insert into note (id, owner_username, content_hash) values (1, ?, null)", leaving);
+		router.pin(leaving, "B", true);
+
+		rebalancer.rebalance();
+
+		assertEquals(List.of(1L), ids(shardA, "note"));
+		assertEquals(List.of(1L), ids(shardB, "note"));
+		assertTrue(router.isMoving(leaving));
+	}
+
+	@Test
+	void ownersOfJoiningShardAreNotRoutedThereBeforeMoving() {
+		String leaving = ownerTargeting("B");
+
+		assertEquals("A", router.shardFor(leaving));
+		assertNull(router.pinnedShard(leaving));
+	}
+
+	private String ownerTargeting(String shard) {
+		return IntStream.range(0, 1000).mapToObj(i -> "user" + i)
+				.filter(owner -> router.targetShardFor(owner).equals(shard))
+				.findFirst().orElseThrow();
+	}
+
+	private void insertNote(long id, String owner, String hash) {
+		shardA.update("insert into note (id, owner_username, content_hash) values (?, ?, ?)", id, owner, hash);
+	}
+
+	private static List<Long> ids(JdbcTemplate jdbc, String table) {
+		return jdbc.queryForList("select id from " + table + " order by id", Long.class);
+	}
+
+	private static int refCount(JdbcTemplate jdbc, String hash) {
+		List<Integer> counts = jdbc.queryForList("select ref_count from note_blobs where hash = ?", Integer.class, hash);
+		return counts.isEmpty() ? 0 : counts.getFirst();
+	}
+
+	private static DataSource database() {
+		return new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+	}
+
+	private static ShardingProperties.Shard shard(String name, int id, ShardingProperties.ShardState state) {
+		ShardingProperties.Shard shard = new ShardingProperties.Shard();
+		shard.setName(name);
+		shard.setId(id);
+		shard.setState(state);
+		return shard;
+	}
+
+	// The owner-scoped columns the rebalancer relies on, not the full Flyway schema
+	private static void createSchema(JdbcTemplate jdbc) {
+		jdbc.execute("create table note (id bigint primary key, owner_username varchar(255), content_hash varchar(64))");
+		jdbc.execute("create table note_blobs (hash varchar(64) primary key, content varchar(255), ref_count int)");
+		jdbc.execute("create table note_revisions (id bigint primary key, note_id bigint, version int)");
+		jdbc.execute("create table note_imports (import_id varchar(64) primary key, owner_username varchar(255))");
+		jdbc.execute("create table note_shares (id bigint primary key, note_id bigint, owner_username varchar(255), "
+				+ "grantee_username varchar(255))");
+		jdbc.execute("create table note_tags (id bigint primary key, note_id bigint, owner_username varchar(255), "
+				+ "tag varchar(64))");
+		jdbc.execute("create table note_facet_counts (id bigint primary key, owner_username varchar(255), "
+				+ "type varchar(10), name varchar(100), note_count bigint)");
+		jdbc.execute("create table user_data_keys (id bigint primary key, owner_username varchar(255), key_id int)");
+		jdbc.execute("create table owner_shards (owner_username varchar(255) primary key, shard varchar(64), "
+				+ "moving boolean)");
+		jdbc.execute("create table maintenance_locks (name varchar(64) primary key, holder varchar(64), "
+				+ "locked_until timestamp)");
+		jdbc.update("insert into maintenance_locks (name) values ('owner-data')");
+	}
+}
@@ -0,0 +1,54 @@
+package com.secure.notes.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardRingTest {
+
+	private static final int OWNERS = 20_000;
+
+	@Test
+	void spreadsOwnersEvenly() {
+		ShardRing ring = new ShardRing(List.of("s0", "s1", "s2", "s3"), 160);
+		Map<String, Integer> counts = new HashMap<>();
+
+		for (int i = 0; i < OWNERS; i++) {
+			counts.merge(ring.shardFor("user" + i), 1, Integer::sum);
+		}
+
+		assertEquals(4, counts.size());
+		counts.values().forEach(count ->
+				assertTrue(Math.abs(count - OWNERS / 4) < OWNERS / 4 * 0.2, "uneven spread " + counts));
+	}
+
+	@Test
+	void addingShardOnlyMovesOwnersOntoIt() {
+		ShardRing before = new ShardRing(List.of("s0", "s1", "s2"), 160);
+		ShardRing after = new ShardRing(List.of("s0", "s1", "s2", "s3"), 160);
+		int moved = 0;
+
+		for (int i = 0; i < OWNERS; i++) {
+			String owner = "user" + i;
+			if (!before.shardFor(owner).equals(after.shardFor(owner))) {
+				assertEquals("s3", after.shardFor(owner));
+				moved++;
+			}
+		}
+
+		// Roughly a quarter of the owners, never a reshuffle
+		assertTrue(moved > OWNERS / 4 * 0.8 && moved < OWNERS / 4 * 1.2, "moved " + moved);
+	}
+
+	@Test
+	void hashIsStable() {
+		assertEquals(ShardRing.hash("alice"), ShardRing.hash("alice"));
+		assertEquals(new ShardRing(List.of("a", "b"), 16).shardFor("alice"),
+				new ShardRing(List.of("b", "a"), 16).shardFor("alice"));
+	}
+}
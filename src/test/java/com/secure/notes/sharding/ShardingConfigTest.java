@@ -0,0 +1,48 @@
+package com.secure.notes.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardingConfigTest {
+
+	@Test
+	void shardPoolsTakeOverPrimaryPoolSettings() throws IOException {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new ResourcePropertySource("classpath:application-prod.properties"));
+		ShardingProperties properties = new ShardingProperties();
+		ShardingProperties.Shard shard = new ShardingProperties.Shard();
+		shard.setName("shard0");
+		shard.setUrl("jdbc:mysql://db0:3306/notesdb");
+		shard.setPassword("secret");
+		properties.setShards(List.of(shard));
+
+		ShardDataSources shardDataSources = new ShardingConfig.Enabled(false).shardDataSources(properties, environment);
+
+		try {
+			HikariDataSource pool = (HikariDataSource) shardDataSources.get("shard0");
+			// Hibernate is told the pool disables auto-commit, so the shard's must not commit each statement
+			assertFalse(pool.isAutoCommit());
+			assertEquals(3000, pool.getConnectionTimeout());
+			assertEquals("shard-shard0", pool.getPoolName());
+			assertEquals("root", pool.getUsername());
+			assertTrue(pool.getJdbcUrl().startsWith("jdbc:mysql://db0:3306/notesdb?useServerPrepStmts=true&"));
+		} finally {
+			shardDataSources.destroy();
+		}
+	}
+
+	@Test
+	void refusesToStartWithReadReplicas() {
+		assertThrows(IllegalStateException.class, () -> new ShardingConfig.Enabled(true));
+	}
+}
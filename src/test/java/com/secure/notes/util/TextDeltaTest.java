@@ -0,0 +1,57 @@
+package com.secure.notes.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TextDeltaTest {
+
+	@Test
+	void roundTripsEdits() {
+		String[][] cases = {
+				{"", ""},
+				{"", "hello"},
+				{"hello", ""},
+				{"hello world", "hello brave world"},
+				{"hello brave world", "hello world"},
+				{"aaaa", "aaaaaa"},
+				{"abc", "xyz"},
+				{"line one\nline two", "line one\nline 2\nline three"},
+		};
+		for (String[] c : cases) {
+			assertEquals(c[1], TextDelta.apply(c[0], TextDelta.diff(c[0], c[1])));
+		}
+	}
+
+	@Test
+	void keepsSurrogatePairsWhole() {
+		String[][] cases = {
+				{"\uD83D\uDE00", "\uD83D\uDE03"},
+				{"smile \uD83D\uDE00!", "smile \uD83D\uDE03!"},
+				{"\uD83D\uDE00 end", "\uD83D\uDC4D end"},
+				{"a\uD83D\uDE00", "\uD83D\uDE00"},
+		};
+		for (String[] c : cases) {
+			String delta = TextDelta.diff(c[0], c[1]);
+			String inserted = delta.substring(delta.indexOf(',', delta.indexOf(',') + 1) + 1);
+
+			assertEquals(c[1], TextDelta.apply(c[0], delta));
+			assertEquals(inserted.length(), inserted.codePoints().map(Character::charCount).sum());
+			assertFalse(!inserted.isEmpty() && Character.isLowSurrogate(inserted.charAt(0)), delta);
+			assertFalse(!inserted.isEmpty() && Character.isHighSurrogate(inserted.charAt(inserted.length() - 1)), delta);
+		}
+		assertEquals("0,2,\uD83D\uDE03", TextDelta.diff("\uD83D\uDE00", "\uD83D\uDE03"));
+	}
+
+	@Test
+	void storesOnlyTheChangedRegion() {
+		String base = "x".repeat(10_000);
+		String edited = base.substring(0, 5_000) + "inserted, with a comma" + base.substring(5_000);
+
+		String delta = TextDelta.diff(base, edited);
+
+		assertEquals("5000,0,inserted, with a comma", delta);
+		assertEquals(edited, TextDelta.apply(base, delta));
+	}
+}